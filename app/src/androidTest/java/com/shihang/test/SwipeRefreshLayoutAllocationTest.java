@@ -0,0 +1,141 @@
+package com.shihang.test;
+
+import android.app.Instrumentation;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.shihang.pulltorefresh.PullRecyclerView;
+import com.shihang.pulltorefresh.view.SwipeRefreshLayout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the main thread allocations of complete pull, refresh, result and dismiss cycles of an attached
+ * {@link SwipeRefreshLayout}. Every spinner animation, the result icons and the dismiss runnable are reused.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SwipeRefreshLayoutAllocationTest {
+
+    private static final int CYCLES = 10;
+    private static final int MOVE_STEPS = 20;
+    private static final long FRAME_MILLIS = 16;
+    private static final float START_X = 10, START_Y = 10;
+    /** The spinner reaches the refresh position in 200 ms. */
+    private static final long REFRESH_WAIT_MILLIS = 500;
+    /** The result is shown for 500 ms, then the spinner scales down in 150 ms. */
+    private static final long DISMISS_WAIT_MILLIS = 1000;
+
+    @Rule
+    public ActivityTestRule<MainActivity> activityRule = new ActivityTestRule<>(MainActivity.class);
+
+    private Instrumentation instrumentation;
+    private SwipeRefreshLayout layout;
+    private float dragDistance;
+
+    @Before
+    public void setUp() throws Exception {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        final MainActivity activity = activityRule.getActivity();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                PullRecyclerView pullView = activity.findViewById(R.id.pullView);
+                layout = new SwipeRefreshLayout(activity);
+                layout.addView(new View(activity));
+                activity.setContentView(layout);
+                // The sample list is detached now, its loading would allocate on the main thread too.
+                pullView.cancelLoading();
+            }
+        });
+        // Pull past the trigger distance (64dp at half the finger speed).
+        dragDistance = 64 * 4 * activity.getResources().getDisplayMetrics().density;
+        instrumentation.waitForIdleSync();
+    }
+
+    @Test
+    public void refreshCyclesDoNotAllocate() throws Exception {
+        // Warm up, so objects created on first use (result icons, pooled events and messages) are not counted.
+        cycle();
+        cycle();
+
+        instrumentation.runOnMainSync(new Runnable() {
+            @SuppressWarnings("deprecation")
+            @Override
+            public void run() {
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+            }
+        });
+        for (int i = 0; i < CYCLES; i++) {
+            cycle();
+        }
+        final int[] allocations = new int[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @SuppressWarnings("deprecation")
+            @Override
+            public void run() {
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+        assertEquals("Main thread allocations in " + CYCLES + " refresh cycles", 0, allocations[0]);
+    }
+
+    /** Pull the spinner down, release it to refresh, show the result and wait until it is dismissed. */
+    private void cycle() throws Exception {
+        long downTime = SystemClock.uptimeMillis();
+        dispatch(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, START_X, START_Y, 0));
+        float y = START_Y;
+        for (int i = 1; i <= MOVE_STEPS; i++) {
+            // Let the alpha animations started by moveSpinner run between the moves.
+            Thread.sleep(FRAME_MILLIS);
+            y = START_Y + dragDistance * i / MOVE_STEPS;
+            dispatch(MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), MotionEvent.ACTION_MOVE, START_X, y, 0));
+        }
+        dispatch(MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), MotionEvent.ACTION_UP, START_X, y, 0));
+
+        Thread.sleep(REFRESH_WAIT_MILLIS);
+        final boolean[] state = new boolean[1];
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                state[0] = layout.isRefreshing();
+                layout.setRefreshResult(true);
+            }
+        });
+        assertTrue("The pull did not start a refresh", state[0]);
+
+        Thread.sleep(DISMISS_WAIT_MILLIS);
+        instrumentation.waitForIdleSync();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                state[0] = layout.isRefreshing();
+            }
+        });
+        assertFalse("The result was not dismissed", state[0]);
+    }
+
+    /** The event is obtained on the test thread, only its dispatch runs on the main thread. */
+    private void dispatch(final MotionEvent event) {
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                layout.dispatchTouchEvent(event);
+                event.recycle();
+            }
+        });
+    }
+}
@@ -2,8 +2,8 @@ package com.shihang.test;
 
 import android.graphics.Color;
 import android.os.Bundle;
-import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
@@ -12,13 +12,21 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.shihang.pulltorefresh.LoadRequest;
+import com.shihang.pulltorefresh.PageLoader;
+import com.shihang.pulltorefresh.PagedListModel;
 import com.shihang.pulltorefresh.PullRecyclerView;
+import com.shihang.pulltorefresh.SnapshotStore;
 import com.yanzhenjie.recyclerview.swipe.SwipeMenu;
 import com.yanzhenjie.recyclerview.swipe.SwipeMenuBridge;
 import com.yanzhenjie.recyclerview.swipe.SwipeMenuCreator;
 import com.yanzhenjie.recyclerview.swipe.SwipeMenuItem;
 import com.yanzhenjie.recyclerview.swipe.SwipeMenuItemClickListener;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,8 +36,7 @@ public class MainActivity extends AppCompatActivity {
 
     private LayoutInflater inflater;
     private TextAdapter adapter;
-
-    private Handler handler = new Handler();
+    private PagedListModel<String> listModel;
 
 
     @Override
@@ -39,24 +46,18 @@ public class MainActivity extends AppCompatActivity {
         inflater = LayoutInflater.from(this);
 
         pullView = findViewById(R.id.pullView);
-        pullView.setPullListener(new PullRecyclerView.PullListener() {
+        pullView.setPageLoader(new PageLoader<String>() {
             @Override
-            public void onLoadData(final boolean isRefresh, final int page) {
-                handler.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        List<String> list = new ArrayList<>();
-                            for (int i = 15; i > 0; i--) {
-                                list.add("测试" + ((page == 0 ? 1:page)*15 - i + 1));
-                            }
-                            if (page == 1) {
-                            adapter.resetDatas(list);
-                        } else {
-                            adapter.addDatas(list);
-                        }
-                        pullView.loadFinish(isRefresh, page < 5);
-                    }
-                }, 2000);
+            public Page<String> loadPage(LoadRequest request) throws Exception {
+                //后台线程, 模拟网络请求
+                Thread.sleep(2000);
+                int page = request.getPage();
+                List<String> list = new ArrayList<>();
+                for (int i = 15; i > 0; i--) {
+                    list.add("测试" + ((page == 0 ? 1:page)*15 - i + 1));
+                }
+                //共5页, 告诉列表总数后直接撑开, 滚动到哪里加载哪里
+                return new Page<>(list, 5 * 15);
             }
         });
         pullView.setPullEnable(true, true);
@@ -66,8 +67,33 @@ public class MainActivity extends AppCompatActivity {
         pullView.getSwipeRecyclerView().setSwipeMenuItemClickListener(menuClick);
 
         //mRecyclerView.setSwipeItemClickListener(mItemClickListener); // RecyclerView Item点击监听。
+        listModel = new PagedListModel<>(new DiffUtil.ItemCallback<String>() {
+            @Override
+            public boolean areItemsTheSame(String oldItem, String newItem) {
+                return oldItem.equals(newItem);
+            }
+
+            @Override
+            public boolean areContentsTheSame(String oldItem, String newItem) {
+                return oldItem.equals(newItem);
+            }
+        });
+        //只保留可见区域附近的3页
+        listModel.setPageWindow(3);
         adapter = new TextAdapter();
-        pullView.setAdapter(adapter);
+        pullView.setAdapter(adapter, listModel);
+        //冷启动先显示上次的第一页
+        pullView.setSnapshotStore(new SnapshotStore<>(new File(getCacheDir(), "main.snapshot"), 1, new SnapshotStore.Codec<String>() {
+            @Override
+            public void write(DataOutput out, String item) throws IOException {
+                out.writeUTF(item);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                return in.readUTF();
+            }
+        }));
         pullView.pullRefreshing();
     }
 
@@ -105,18 +131,6 @@ public class MainActivity extends AppCompatActivity {
 
     public class TextAdapter extends RecyclerView.Adapter<MainActivity.ViewHolder> {
 
-        private List<String> beans = new ArrayList<>();
-
-        public void addDatas(List<String> beans) {
-            this.beans.addAll(beans);
-            notifyDataSetChanged();
-        }
-
-        public void resetDatas(List<String> beans) {
-            if (beans != null) this.beans = beans;
-            notifyDataSetChanged();
-        }
-
         @Override
         public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
             return new ViewHolder(inflater.inflate(R.layout.item_text, parent, false));
@@ -124,12 +138,14 @@ public class MainActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(ViewHolder holder, int position) {
-            holder.text.setText(beans.get(position));
+            //被换出的页显示占位
+            String text = listModel.get(position);
+            holder.text.setText(text == null ? "加载中..." : text);
         }
 
         @Override
         public int getItemCount() {
-            return beans.size();
+            return listModel.size();
         }
     }
 
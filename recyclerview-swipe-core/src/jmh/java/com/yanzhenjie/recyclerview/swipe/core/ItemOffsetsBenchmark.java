@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the divider offsets of every item, like {@code DefaultItemDecoration.getItemOffsets} in a layout pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemOffsetsBenchmark {
+
+    @Param({"1", "3"})
+    public int columnCount;
+
+    @Param({"1000"})
+    public int childCount;
+
+    private final int[] mOffsets = new int[4];
+
+    @Benchmark
+    public void getItemOffsets(Blackhole blackhole) {
+        int[] offsets = mOffsets;
+        for (int position = 0; position < childCount; position++) {
+            ItemOffsets.getItemOffsets(offsets, position, columnCount, childCount, 2, 2);
+            blackhole.consume(offsets);
+        }
+    }
+}
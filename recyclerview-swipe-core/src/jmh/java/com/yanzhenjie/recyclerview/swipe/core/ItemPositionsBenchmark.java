@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps every position of a list with headers and footers, like a layout pass of the adapter wrapper.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemPositionsBenchmark {
+
+    @Param({"2"})
+    public int headerCount;
+
+    @Param({"1000"})
+    public int contentCount;
+
+    @Param({"1"})
+    public int footerCount;
+
+    @Benchmark
+    public void mapPositions(Blackhole blackhole) {
+        int itemCount = headerCount + contentCount + footerCount;
+        for (int position = 0; position < itemCount; position++) {
+            if (ItemPositions.isHeader(position, headerCount)) {
+                blackhole.consume(position);
+            } else if (ItemPositions.isFooter(position, headerCount, contentCount)) {
+                blackhole.consume(ItemPositions.toFooterIndex(position, headerCount, contentCount));
+            } else {
+                blackhole.consume(ItemPositions.toContentPosition(position, headerCount));
+            }
+        }
+    }
+}
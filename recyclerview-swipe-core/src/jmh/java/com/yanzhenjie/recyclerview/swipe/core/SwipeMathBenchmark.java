@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The math of a swipe, run on each move event and when the finger is up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwipeMathBenchmark {
+
+    private static final int SIZE = 256;
+    private static final int MENU_WIDTH = 280;
+
+    private final int[] mScrollX = new int[SIZE];
+    private final int[] mVelocity = new int[SIZE];
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            mScrollX[i] = random.nextInt(MENU_WIDTH * 3) - MENU_WIDTH * 3 / 2;
+            mVelocity[i] = random.nextInt(8000) - 1000;
+        }
+    }
+
+    private int next() {
+        return mIndex = (mIndex + 1) & (SIZE - 1);
+    }
+
+    @Benchmark
+    public void checkXY(Blackhole blackhole) {
+        int scrollX = mScrollX[next()];
+        blackhole.consume(SwipeMath.clampScrollX(SwipeMath.LEFT_DIRECTION, scrollX, MENU_WIDTH));
+        blackhole.consume(SwipeMath.clampScrollX(SwipeMath.RIGHT_DIRECTION, scrollX, MENU_WIDTH));
+    }
+
+    @Benchmark
+    public void isMenuOpen(Blackhole blackhole) {
+        int scrollX = mScrollX[next()];
+        blackhole.consume(SwipeMath.isMenuOpen(SwipeMath.LEFT_DIRECTION, scrollX, MENU_WIDTH));
+        blackhole.consume(SwipeMath.isMenuOpen(SwipeMath.RIGHT_DIRECTION, scrollX, MENU_WIDTH));
+    }
+
+    @Benchmark
+    public int getSwipeDuration() {
+        int index = next();
+        return SwipeMath.getSwipeDuration(mScrollX[index], MENU_WIDTH, mVelocity[index], 200);
+    }
+}
@@ -0,0 +1,100 @@
+package com.shihang.pulltorefresh;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.util.DiffUtil;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 页窗口换出: 可见区域和前后各一页加载后不会被换出.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PagedListModelTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int PAGE_COUNT = 10;
+
+    private static final DiffUtil.ItemCallback<String> ITEM_CALLBACK = new DiffUtil.ItemCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void neighbourPagesStayLoadedWithTightWindow() {
+        PagedListModel<String> model = newModel();
+        // 可见区域跨过第2, 3页, 加上前后各一页共4页, 窗口只有3页
+        model.setViewport(PAGE_SIZE + 5, PAGE_SIZE * 2 + 5);
+        assertArrayEquals(new int[]{2, 3, 4}, model.getMissingPages());
+
+        for (int page = 2; page <= 4; page++) {
+            assertTrue(model.replacePage(page, page(page)));
+        }
+        assertEquals(0, model.getMissingPages().length);
+        for (int position = 0; position < PAGE_SIZE * 4; position++) {
+            assertFalse("position " + position, model.isPlaceholder(position));
+        }
+    }
+
+    @Test
+    public void farPagesAreEvicted() {
+        PagedListModel<String> model = newModel();
+        model.setViewport(PAGE_SIZE + 5, PAGE_SIZE * 2 + 5);
+        for (int page = 2; page <= 4; page++) {
+            model.replacePage(page, page(page));
+        }
+
+        // 滚动到第8页
+        model.setViewport(PAGE_SIZE * 7 + 2, PAGE_SIZE * 7 + 8);
+        assertArrayEquals(new int[]{7, 8, 9}, model.getMissingPages());
+        for (int page = 7; page <= 9; page++) {
+            assertTrue(model.replacePage(page, page(page)));
+        }
+        assertEquals(0, model.getMissingPages().length);
+        for (int position = 0; position < PAGE_SIZE * 4; position++) {
+            assertTrue("position " + position, model.isPlaceholder(position));
+        }
+        for (int position = PAGE_SIZE * 6; position < PAGE_SIZE * 9; position++) {
+            assertFalse("position " + position, model.isPlaceholder(position));
+        }
+    }
+
+    private static PagedListModel<String> newModel() {
+        PagedListModel<String> model = new PagedListModel<>(ITEM_CALLBACK, DIRECT_EXECUTOR);
+        model.setPageWindow(3);
+        // 空列表提交时不计算差异, 直接生效
+        model.submitFirstPage(page(1), PAGE_SIZE * PAGE_COUNT);
+        return model;
+    }
+
+    private static List<String> page(int page) {
+        List<String> items = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            items.add(page + "-" + i);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,94 @@
+package com.shihang.pulltorefresh.view;
+
+import android.app.Instrumentation;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Device microbenchmark of one spinner frame: {@link MaterialProgressDrawable#doFrame(long)}, which runs the
+ * interpolators, updates the ring and invalidates, followed by {@link MaterialProgressDrawable#draw(Canvas)}.
+ * <p>
+ * Run it with
+ * {@code gradlew :recyclerview-swipe:connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.shihang.pulltorefresh.view.MaterialProgressDrawableBenchmark}.
+ * The results are written to logcat and to the instrumentation status.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MaterialProgressDrawableBenchmark {
+
+    private static final String TAG = "ProgressFrameBenchmark";
+    private static final int WARMUP_FRAMES = 2000;
+    private static final int FRAMES = 20000;
+    private static final long FRAME_MILLIS = 16;
+
+    private static final Drawable.Callback CALLBACK = new Drawable.Callback() {
+        @Override
+        public void invalidateDrawable(Drawable who) {
+        }
+
+        @Override
+        public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        }
+
+        @Override
+        public void unscheduleDrawable(Drawable who, Runnable what) {
+        }
+    };
+
+    private MaterialProgressDrawable mDrawable;
+    private Canvas mCanvas;
+    private long mFrameTime;
+
+    @Test
+    public void frame() throws Exception {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Bundle results = new Bundle();
+        // The drawable posts its frames to the main thread Choreographer, start it there.
+        instrumentation.runOnMainSync(new Runnable() {
+            @SuppressWarnings("deprecation")
+            @Override
+            public void run() {
+                mDrawable = new MaterialProgressDrawable(instrumentation.getTargetContext());
+                int size = mDrawable.getIntrinsicWidth();
+                mDrawable.setBounds(0, 0, size, size);
+                mDrawable.setCallback(CALLBACK);
+                mCanvas = new Canvas(Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888));
+                mDrawable.start();
+
+                runFrames(WARMUP_FRAMES);
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                long start = System.nanoTime();
+                runFrames(FRAMES);
+                long elapsed = System.nanoTime() - start;
+                Debug.stopAllocCounting();
+                int allocations = Debug.getThreadAllocCount();
+                mDrawable.stop();
+
+                results.putLong("frame_ns", elapsed / FRAMES);
+                results.putDouble("frame_allocations", allocations / (double) FRAMES);
+            }
+        });
+        Log.i(TAG, "doFrame + draw: " + results.getLong("frame_ns") + " ns/frame, "
+                + results.getDouble("frame_allocations") + " allocations/frame");
+        instrumentation.sendStatus(0, results);
+    }
+
+    /** Step the spin like the Choreographer does at 60 fps and draw every frame. */
+    private void runFrames(int frames) {
+        for (int i = 0; i < frames; i++) {
+            mFrameTime += FRAME_MILLIS;
+            mDrawable.doFrame(mFrameTime);
+            mDrawable.draw(mCanvas);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Field;
+
+/**
+ * Device benchmark of {@link SwipeAdapterWrapper#onCreateViewHolder(ViewGroup, int)} for an item with a swipe menu.
+ * <p>
+ * The wrapped holder gets the {@link SwipeMenuLayout} as its final {@link RecyclerView.ViewHolder#itemView}. The
+ * write uses a {@link Field} resolved once, the previous implementation walked the holder's class hierarchy and
+ * looked up the field for every holder. Both writes are timed, the previous creation cost is the measured creation
+ * with the cached write replaced by the per-holder lookup.
+ * <p>
+ * Run it with
+ * {@code gradlew :recyclerview-swipe:connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.yanzhenjie.recyclerview.swipe.SwipeAdapterWrapperBenchmark}.
+ * The results are written to logcat and to the instrumentation status.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SwipeAdapterWrapperBenchmark {
+
+    private static final String TAG = "HolderCreateBenchmark";
+    private static final int WARMUP_HOLDERS = 200;
+    private static final int HOLDERS = 2000;
+    private static final int WRITES = 100000;
+
+    private static final SwipeMenuCreator MENU_CREATOR = new SwipeMenuCreator() {
+        @Override
+        public void onCreateMenu(SwipeMenu swipeLeftMenu, SwipeMenu swipeRightMenu, int viewType) {
+            swipeRightMenu.addMenuItem(new SwipeMenuItem(swipeRightMenu.getContext())
+                    .setText("Delete")
+                    .setWidth(140)
+                    .setHeight(ViewGroup.LayoutParams.MATCH_PARENT));
+        }
+    };
+
+    @Test
+    public void createViewHolder() throws Exception {
+        final Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Bundle results = new Bundle();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    measure(instrumentation.getTargetContext(), results);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        Log.i(TAG, "create: " + results.getLong("create_ns") + " ns/holder ("
+                + results.getLong("create_per_second") + " holders/s), previous: "
+                + results.getLong("create_previous_ns") + " ns/holder ("
+                + results.getLong("create_previous_per_second") + " holders/s); itemView write: "
+                + results.getLong("item_view_cached_ns") + " ns cached, "
+                + results.getLong("item_view_lookup_ns") + " ns looked up");
+        instrumentation.sendStatus(0, results);
+    }
+
+    private static void measure(Context context, Bundle results) throws Exception {
+        ViewGroup parent = new FrameLayout(context);
+        SwipeAdapterWrapper wrapper = new SwipeAdapterWrapper(context, new TextAdapter());
+        wrapper.setSwipeMenuCreator(MENU_CREATOR);
+
+        createHolders(wrapper, parent, WARMUP_HOLDERS);
+        long start = System.nanoTime();
+        createHolders(wrapper, parent, HOLDERS);
+        long createNs = (System.nanoTime() - start) / HOLDERS;
+
+        RecyclerView.ViewHolder holder = wrapper.onCreateViewHolder(parent, 0);
+        View itemView = holder.itemView;
+        Field cached = RecyclerView.ViewHolder.class.getDeclaredField("itemView");
+        cached.setAccessible(true);
+        for (int i = 0; i < WRITES / 10; i++) {
+            cached.set(holder, itemView);
+            lookUpAndSet(holder, itemView);
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            cached.set(holder, itemView);
+        }
+        long cachedNs = (System.nanoTime() - start) / WRITES;
+        start = System.nanoTime();
+        for (int i = 0; i < WRITES; i++) {
+            lookUpAndSet(holder, itemView);
+        }
+        long lookupNs = (System.nanoTime() - start) / WRITES;
+
+        long previousNs = createNs - cachedNs + lookupNs;
+        results.putLong("create_ns", createNs);
+        results.putLong("create_per_second", 1000000000L / Math.max(1, createNs));
+        results.putLong("create_previous_ns", previousNs);
+        results.putLong("create_previous_per_second", 1000000000L / Math.max(1, previousNs));
+        results.putLong("item_view_cached_ns", cachedNs);
+        results.putLong("item_view_lookup_ns", lookupNs);
+    }
+
+    private static void createHolders(SwipeAdapterWrapper wrapper, ViewGroup parent, int count) {
+        for (int i = 0; i < count; i++) {
+            wrapper.onCreateViewHolder(parent, 0);
+        }
+    }
+
+    /**
+     * The itemView write of the previous implementation, done for every created holder.
+     */
+    private static void lookUpAndSet(RecyclerView.ViewHolder holder, View itemView) throws Exception {
+        Field field = getSupperClass(holder.getClass()).getDeclaredField("itemView");
+        if (!field.isAccessible()) field.setAccessible(true);
+        field.set(holder, itemView);
+    }
+
+    private static Class<?> getSupperClass(Class<?> aClass) {
+        Class<?> supperClass = aClass.getSuperclass();
+        if (supperClass != null && !supperClass.equals(Object.class)) {
+            return getSupperClass(supperClass);
+        }
+        return aClass;
+    }
+
+    private static class TextAdapter extends RecyclerView.Adapter<TextHolder> {
+
+        @Override
+        public TextHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new TextHolder(new TextView(parent.getContext()));
+        }
+
+        @Override
+        public void onBindViewHolder(TextHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return 0;
+        }
+    }
+
+    private static class TextHolder extends RecyclerView.ViewHolder {
+
+        TextHolder(View itemView) {
+            super(itemView);
+        }
+    }
+}
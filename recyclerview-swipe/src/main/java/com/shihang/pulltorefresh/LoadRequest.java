@@ -0,0 +1,75 @@
+package com.shihang.pulltorefresh;
+
+/**
+ * 一次刷新或加载更多的请求.
+ * 开始刷新会取消还没完成的加载更多, 已经取消或者过期的请求, 它的结果会被 {@link PullRecyclerView#loadFinish} 和
+ * {@link PullRecyclerView#loadError} 忽略.
+ * 只在主线程调用.
+ */
+public final class LoadRequest {
+
+    public interface OnCancelListener {
+        void onCancel(LoadRequest request);
+    }
+
+    private final boolean isRefresh;
+    private final boolean isReload;
+    private final int page;
+    private final int generation;
+    private boolean cancelled;
+    private OnCancelListener cancelListener;
+
+    LoadRequest(boolean isRefresh, int page, int generation) {
+        this(isRefresh, false, page, generation);
+    }
+
+    LoadRequest(boolean isRefresh, boolean isReload, int page, int generation) {
+        this.isRefresh = isRefresh;
+        this.isReload = isReload;
+        this.page = page;
+        this.generation = generation;
+    }
+
+    public boolean isRefresh() {
+        return isRefresh;
+    }
+
+    /**
+     * 加载被换出或者还没加载(知道总数时)的页, 结果替换这一页的占位, 不改变加载更多的状态.
+     * 在 {@link PullRecyclerView.PullListener} 中和加载更多一样是 isRefresh = false.
+     */
+    public boolean isReload() {
+        return isReload;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    /** 每个请求递增, 越大越新 */
+    public int getGeneration() {
+        return generation;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** 请求被取消时回调, 用来中断网络请求; 已经取消的立即回调 */
+    public void setOnCancelListener(OnCancelListener listener) {
+        this.cancelListener = listener;
+        if (cancelled && listener != null) listener.onCancel(this);
+    }
+
+    public void cancel() {
+        if (cancelled) return;
+        cancelled = true;
+        if (cancelListener != null) cancelListener.onCancel(this);
+    }
+
+    @Override
+    public String toString() {
+        return "LoadRequest{isRefresh=" + isRefresh + ", isReload=" + isReload + ", page=" + page + ", generation=" + generation
+                + ", cancelled=" + cancelled + "}";
+    }
+}
@@ -0,0 +1,39 @@
+package com.shihang.pulltorefresh;
+
+import java.util.List;
+
+/**
+ * 在后台线程加载一页数据, 用 {@link PullRecyclerView#setPageLoader(PageLoader)} 设置.
+ * 结果在主线程一次性提交: 数据交给 {@link PagedListModel}, 同时结束刷新/加载更多状态并更新空布局.
+ */
+public interface PageLoader<T> {
+
+    /**
+     * 在后台线程调用, 请求被取消时线程会被中断, 抛出异常当作加载失败.
+     */
+    Page<T> loadPage(LoadRequest request) throws Exception;
+
+    final class Page<T> {
+
+        public final List<T> data;
+        /** true:可以加载更多, false:已经是最后一页 */
+        public final boolean hasMore;
+        /** 全部 item 的个数, -1:不知道 */
+        public final int totalCount;
+
+        public Page(List<T> data, boolean hasMore) {
+            this.data = data;
+            this.hasMore = hasMore;
+            this.totalCount = -1;
+        }
+
+        /**
+         * 知道总数, 见 {@link PullRecyclerView#loadFinish(LoadRequest, List, int)}
+         */
+        public Page(List<T> data, int totalCount) {
+            this.data = data;
+            this.hasMore = false;
+            this.totalCount = totalCount;
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.shihang.pulltorefresh;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 分页列表数据, 刷新和加载更多的数据在后台线程计算差异, 只通知变化的范围, 不再 notifyDataSetChanged.
+ * 新的数据提交后, 还没算完的旧结果会被丢弃.
+ * 设置了页窗口或内存预算后, 离可见区域远的页会被换成占位(null), 总数不变, 滚动位置不会跳动,
+ * 占位的页滚回可见区域时由 PullRecyclerView 重新加载.
+ * 知道总数时用 {@link #submitFirstPage(List, int)} 一次撑开整个列表, 没加载的页也是占位, 滚动到哪里加载哪里.
+ * 只在主线程调用.
+ */
+public class PagedListModel<T> {
+
+    /** 计算一个 item 占用的内存, 用于 {@link #setMemoryBudget(long, ItemSizer)} */
+    public interface ItemSizer<T> {
+        long sizeOf(T item);
+    }
+
+    private static final int[] NO_PAGES = new int[0];
+
+    private static ExecutorService sDiffExecutor;
+
+    private final DiffUtil.ItemCallback<T> itemCallback;
+    private final Executor diffExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ListUpdateCallback updateCallback;
+    /** 已经显示的数据 */
+    private List<T> items = Collections.emptyList();
+    /** 最后提交的数据, 加载更多追加在它后面 */
+    private List<T> pendingItems = items;
+    private int generation;
+
+    /** 每一页在列表中的范围, 顺序和页码一致 */
+    private final ArrayList<PageInfo> pages = new ArrayList<>();
+    private int maxPages;
+    private long memoryBudget;
+    private ItemSizer<? super T> itemSizer;
+    private int firstVisible = -1, lastVisible = -1;
+    /** 占位的页数 */
+    private int placeholderPages;
+    /** 计算差异时加载完成的页, 差异应用后再替换, 页码 -> 数据 */
+    private final SparseArray<List<T>> pendingPages = new SparseArray<>();
+    /** 差异应用到 items 后调用 */
+    private Runnable onItemsApplied;
+    /** false: 绑定的 PullRecyclerView 只有 PullListener, 占位的页没有办法重新加载 */
+    private boolean reloadSupported = true;
+
+    public PagedListModel(@NonNull DiffUtil.ItemCallback<T> itemCallback) {
+        this(itemCallback, getDefaultDiffExecutor());
+    }
+
+    public PagedListModel(@NonNull DiffUtil.ItemCallback<T> itemCallback, @NonNull Executor diffExecutor) {
+        this.itemCallback = itemCallback;
+        this.diffExecutor = diffExecutor;
+    }
+
+    private static synchronized Executor getDefaultDiffExecutor() {
+        if (sDiffExecutor == null) {
+            sDiffExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable r) {
+                    Thread thread = new Thread(r, "PagedListModel-diff");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sDiffExecutor;
+    }
+
+    /** 变化通知给 adapter */
+    public void bind(final RecyclerView.Adapter adapter) {
+        this.updateCallback = adapter == null ? null : new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                adapter.notifyItemRangeInserted(position, count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                adapter.notifyItemRangeRemoved(position, count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                adapter.notifyItemMoved(fromPosition, toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                adapter.notifyItemRangeChanged(position, count, payload);
+            }
+        };
+    }
+
+    /** 被换出的 item 为 null */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return null: 这一页已经被换出, 显示占位
+     */
+    public T get(int position) {
+        return items.get(position);
+    }
+
+    public boolean isPlaceholder(int position) {
+        return items.get(position) == null;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * 最多保留可见区域附近的 maxPages 页, 其余的页换成占位.
+     * 可见的页和前后各一页总会保留(它们换出后会马上重新加载), maxPages 比这个范围小时按这个范围算.
+     *
+     * @param maxPages 0:不限制
+     * @throws IllegalStateException 绑定的 PullRecyclerView 只设置了 PullListener
+     */
+    public void setPageWindow(int maxPages) {
+        if (maxPages > 0) checkReloadSupported();
+        this.maxPages = maxPages;
+        trimToWindow();
+    }
+
+    /** 预算按 item 个数计算 */
+    public void setMemoryBudget(long budget) {
+        setMemoryBudget(budget, null);
+    }
+
+    /**
+     * 已加载的页总大小超过预算时, 从离可见区域最远的页开始换出, 可见的页和前后各一页不会被换出.
+     *
+     * @param budget 0:不限制
+     * @param sizer  计算每个 item 的大小, null 时按 item 个数计算
+     */
+    public void setMemoryBudget(long budget, ItemSizer<? super T> sizer) {
+        if (budget > 0) checkReloadSupported();
+        this.memoryBudget = budget;
+        this.itemSizer = sizer;
+        for (int i = 0; i < pages.size(); i++) {
+            PageInfo info = pages.get(i);
+            if (info.loaded) info.cost = costOf(pendingItems, info.start, info.size);
+        }
+        trimToWindow();
+    }
+
+    void setOnItemsAppliedListener(Runnable listener) {
+        this.onItemsApplied = listener;
+    }
+
+    void setReloadSupported(boolean supported) {
+        this.reloadSupported = supported;
+        if (isWindowed() || placeholderPages > 0) checkReloadSupported();
+    }
+
+    private void checkReloadSupported() {
+        if (!reloadSupported) {
+            throw new IllegalStateException("Page window and placeholders are reloaded with LoadRequest, "
+                    + "use setRequestListener() or setPageLoader() instead of setPullListener().");
+        }
+    }
+
+    /** 还有提交的数据在计算差异, 这时页的范围已经是新的, items 还是旧的 */
+    boolean isDiffPending() {
+        return items != pendingItems;
+    }
+
+    boolean isWindowed() {
+        return maxPages > 0 || memoryBudget > 0;
+    }
+
+    /** 有被换出或者还没加载的页 */
+    boolean hasPlaceholders() {
+        return placeholderPages > 0;
+    }
+
+    /**
+     * @param isRefresh true:刷新, 替换全部数据 (false: 加载更多, 追加到后面)
+     * @param page      这一页的数据
+     */
+    public void submitPage(boolean isRefresh, List<T> page) {
+        if (isRefresh) {
+            pages.clear();
+            pendingPages.clear();
+            placeholderPages = 0;
+            List<T> newItems = page == null ? Collections.<T>emptyList() : page;
+            if (!newItems.isEmpty()) pages.add(new PageInfo(0, newItems.size(), costOf(newItems, 0, newItems.size())));
+            submitItems(newItems);
+        } else if (page != null && !page.isEmpty()) {
+            List<T> newItems = new ArrayList<>(pendingItems.size() + page.size());
+            newItems.addAll(pendingItems);
+            newItems.addAll(page);
+            pages.add(new PageInfo(pendingItems.size(), page.size(), costOf(page, 0, page.size())));
+            submitItems(newItems);
+        }
+    }
+
+    /** 替换全部数据, 整个列表当作一页, 不会被换出 */
+    public void submitList(List<T> newList) {
+        pages.clear();
+        pendingPages.clear();
+        placeholderPages = 0;
+        submitItems(newList);
+    }
+
+    /**
+     * 刷新时知道总数: 列表直接撑开到 totalCount, 第一页后面都是占位, 每页的大小和第一页相同.
+     * 占位的页进入可见区域时由 PullRecyclerView 加载, 结果用 {@link #replacePage(int, List)} 替换.
+     *
+     * @param firstPage  第一页的数据
+     * @param totalCount 全部 item 的个数
+     */
+    public void submitFirstPage(List<T> firstPage, int totalCount) {
+        int pageSize = firstPage == null ? 0 : firstPage.size();
+        if (pageSize == 0 || totalCount <= pageSize) {
+            submitPage(true, firstPage);
+            return;
+        }
+        checkReloadSupported();
+        pages.clear();
+        pendingPages.clear();
+        List<T> newItems = new ArrayList<>(totalCount);
+        newItems.addAll(firstPage);
+        pages.add(new PageInfo(0, pageSize, costOf(firstPage, 0, pageSize)));
+        for (int start = pageSize; start < totalCount; start += pageSize) {
+            PageInfo info = new PageInfo(start, Math.min(pageSize, totalCount - start), 0);
+            info.loaded = false;
+            pages.add(info);
+        }
+        placeholderPages = pages.size() - 1;
+        newItems.addAll(Collections.<T>nCopies(totalCount - pageSize, null));
+        submitItems(newItems);
+    }
+
+    private void submitItems(List<T> newList) {
+        final List<T> newItems = newList == null ? Collections.<T>emptyList() : Collections.unmodifiableList(newList);
+        final int runGeneration = ++generation;
+        pendingItems = newItems;
+
+        final List<T> oldItems = items;
+        if (oldItems.isEmpty() || newItems.isEmpty()) {
+            // 不用计算差异
+            items = newItems;
+            if (updateCallback != null) {
+                if (!oldItems.isEmpty()) updateCallback.onRemoved(0, oldItems.size());
+                if (!newItems.isEmpty()) updateCallback.onInserted(0, newItems.size());
+            }
+            trimToWindow();
+            return;
+        }
+
+        diffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffCallback<>(oldItems, newItems, itemCallback));
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (runGeneration != generation) return; // 已经有更新的数据
+                        items = newItems;
+                        if (updateCallback != null) result.dispatchUpdatesTo(updateCallback);
+                        applyPendingPages();
+                        trimToWindow();
+                        if (onItemsApplied != null) onItemsApplied.run();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 加载被换出或者还没加载的页, 这一页的数量变了会通知插入或删除.
+     * 还有数据在计算差异时先保存, 差异应用后再替换; 刷新会丢弃保存的页.
+     *
+     * @param pageNumber 页码, 从1开始
+     * @return false: 这一页不是占位
+     */
+    public boolean replacePage(int pageNumber, List<T> data) {
+        int index = pageNumber - 1;
+        if (index < 0 || index >= pages.size()) return false;
+        PageInfo info = pages.get(index);
+        if (info.loaded) return false;
+        if (data == null) data = Collections.emptyList();
+        if (items != pendingItems) {
+            pendingPages.put(pageNumber, data);
+            return true;
+        }
+
+        int newSize = data.size();
+        List<T> newItems = new ArrayList<>(items.size() - info.size + newSize);
+        newItems.addAll(items.subList(0, info.start));
+        newItems.addAll(data);
+        newItems.addAll(items.subList(info.start + info.size, items.size()));
+        items = pendingItems = Collections.unmodifiableList(newItems);
+
+        int oldSize = info.size;
+        int delta = newSize - oldSize;
+        info.size = newSize;
+        info.loaded = true;
+        placeholderPages--;
+        info.cost = costOf(data, 0, newSize);
+        for (int i = index + 1; i < pages.size(); i++) {
+            pages.get(i).start += delta;
+        }
+        if (updateCallback != null) {
+            int changed = Math.min(oldSize, newSize);
+            if (changed > 0) updateCallback.onChanged(info.start, changed, null);
+            if (delta > 0) updateCallback.onInserted(info.start + oldSize, delta);
+            else if (delta < 0) updateCallback.onRemoved(info.start + newSize, -delta);
+        }
+        trimToWindow();
+        return true;
+    }
+
+    private void applyPendingPages() {
+        if (pendingPages.size() == 0) return;
+        SparseArray<List<T>> loaded = pendingPages.clone();
+        pendingPages.clear();
+        for (int i = 0; i < loaded.size(); i++) {
+            replacePage(loaded.keyAt(i), loaded.valueAt(i));
+        }
+    }
+
+    /**
+     * 可见区域变化, 换出离得远的页.
+     */
+    void setViewport(int first, int last) {
+        firstVisible = first;
+        lastVisible = last;
+        trimToWindow();
+    }
+
+    /**
+     * @return 可见区域和前后各一页中已经被换出的页码, 还有数据在计算差异时为空(可见位置还是旧列表的)
+     */
+    int[] getMissingPages() {
+        if (firstVisible < 0 || pages.isEmpty() || items != pendingItems) return NO_PAGES;
+        int from = Math.max(0, findPageIndex(firstVisible) - 1);
+        int to = Math.min(pages.size() - 1, findPageIndex(lastVisible) + 1);
+        int count = 0;
+        for (int i = from; i <= to; i++) {
+            if (!pages.get(i).loaded) count++;
+        }
+        if (count == 0) return NO_PAGES;
+        int[] missing = new int[count];
+        count = 0;
+        for (int i = from; i <= to; i++) {
+            if (!pages.get(i).loaded) missing[count++] = i + 1;
+        }
+        return missing;
+    }
+
+    private void trimToWindow() {
+        // 还有数据在计算差异时先不换出, 下次可见区域变化再处理
+        if (!isWindowed() || firstVisible < 0 || items != pendingItems || pages.size() <= 1) return;
+        int visibleFrom = findPageIndex(firstVisible);
+        int visibleTo = findPageIndex(lastVisible);
+
+        int loadedPages = 0;
+        long loadedCost = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            PageInfo info = pages.get(i);
+            if (info.loaded) {
+                loadedPages++;
+                loadedCost += info.cost;
+            }
+        }
+
+        List<T> newItems = null;
+        List<PageInfo> evicted = null;
+        while ((maxPages > 0 && loadedPages > maxPages) || (memoryBudget > 0 && loadedCost > memoryBudget)) {
+            // 离可见区域最远的页, 前后各一页是 getMissingPages 要加载的, 不换出
+            int farthest = -1, farthestDistance = 1;
+            for (int i = 0; i < pages.size(); i++) {
+                if (!pages.get(i).loaded) continue;
+                int distance = i < visibleFrom ? visibleFrom - i : i - visibleTo;
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthest < 0) break;
+
+            PageInfo info = pages.get(farthest);
+            if (newItems == null) newItems = new ArrayList<>(items);
+            for (int i = info.start, end = info.start + info.size; i < end; i++) {
+                newItems.set(i, null);
+            }
+            info.loaded = false;
+            placeholderPages++;
+            loadedPages--;
+            loadedCost -= info.cost;
+            info.cost = 0;
+            if (evicted == null) evicted = new ArrayList<>();
+            evicted.add(info);
+        }
+        if (newItems == null) return;
+        items = pendingItems = Collections.unmodifiableList(newItems);
+        if (updateCallback != null) {
+            for (int i = 0; i < evicted.size(); i++) {
+                PageInfo info = evicted.get(i);
+                if (info.size > 0) updateCallback.onChanged(info.start, info.size, null);
+            }
+        }
+    }
+
+    private int findPageIndex(int position) {
+        int low = 0, high = pages.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pages.get(mid).start <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private long costOf(List<T> list, int start, int size) {
+        if (itemSizer == null) return size;
+        long cost = 0;
+        for (int i = start, end = start + size; i < end; i++) {
+            T item = list.get(i);
+            if (item != null) cost += itemSizer.sizeOf(item);
+        }
+        return cost;
+    }
+
+    private static class PageInfo {
+        int start;
+        int size;
+        long cost;
+        boolean loaded = true;
+
+        PageInfo(int start, int size, long cost) {
+            this.start = start;
+            this.size = size;
+            this.cost = cost;
+        }
+    }
+
+    private static class DiffCallback<T> extends DiffUtil.Callback {
+
+        private final List<T> oldItems;
+        private final List<T> newItems;
+        private final DiffUtil.ItemCallback<T> itemCallback;
+
+        DiffCallback(List<T> oldItems, List<T> newItems, DiffUtil.ItemCallback<T> itemCallback) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+            this.itemCallback = itemCallback;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        // 占位(null)只和同一位置的占位相同
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            T oldItem = oldItems.get(oldItemPosition), newItem = newItems.get(newItemPosition);
+            if (oldItem == null || newItem == null) return oldItem == newItem && oldItemPosition == newItemPosition;
+            return itemCallback.areItemsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            T oldItem = oldItems.get(oldItemPosition), newItem = newItems.get(newItemPosition);
+            if (oldItem == null || newItem == null) return oldItem == newItem;
+            return itemCallback.areContentsTheSame(oldItem, newItem);
+        }
+
+        @Override
+        public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            T oldItem = oldItems.get(oldItemPosition), newItem = newItems.get(newItemPosition);
+            if (oldItem == null || newItem == null) return null;
+            return itemCallback.getChangePayload(oldItem, newItem);
+        }
+    }
+}
@@ -1,29 +1,63 @@
 package com.shihang.pulltorefresh;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.view.Gravity;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.FrameLayout;
 
 import com.shihang.pulltorefresh.inter.NotifyListener;
+import com.shihang.pulltorefresh.view.StateLayout;
 import com.shihang.pulltorefresh.view.SwipeRefreshLayout;
 import com.yanzhenjie.recyclerview.swipe.R;
 import com.yanzhenjie.recyclerview.swipe.SwipeMenuRecyclerView;
 import com.yanzhenjie.recyclerview.swipe.SwipeMenuRecyclerView.LoadMoreAction;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class PullRecyclerView extends FrameLayout {
 
     private SwipeRefreshLayout swipeRefreshLayout;
     private SwipeMenuRecyclerView recyclerView;
     private PullListener listener;
-    private ViewGroup emptyParent;
+    private StateLayout stateLayout;
     private boolean headerEnable, loadMoreEnable;
     private int page;
+    private PagedListModel<?> listModel;
+    private RequestListener requestListener;
+    /** 正在进行的请求, 完成或取消后为 null */
+    private LoadRequest refreshRequest, loadMoreRequest;
+    private int generation;
+    /** 重新加载被换出的页的请求, 按创建顺序 */
+    private final ArrayList<LoadRequest> reloadRequests = new ArrayList<>();
+    private int viewportFirst = -1, viewportLast = -1;
+    private SnapshotStore<?> snapshotStore;
+    /** 还没有刷新成功过, 可以先显示快照 */
+    private boolean snapshotRestorable;
+    private PageLoader<?> pageLoader;
+    private ExecutorService loadExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /** 默认加载线程池: 最多2个线程, 排队的请求最多8个, 超出的请求直接加载失败 */
+    private static final int LOADER_THREADS = 2;
+    private static final int LOADER_QUEUE_SIZE = 8;
+    private static ExecutorService sLoadExecutor;
 
     public PullRecyclerView(@NonNull Context context) {
         this(context, null);
@@ -35,72 +69,374 @@ public class PullRecyclerView extends FrameLayout {
         swipeRefreshLayout = findViewById(R.id.swipeRefreshLayout);
         swipeRefreshLayout.setColorSchemeResources(R.color.loadingColor);
         recyclerView = findViewById(R.id.recyclerView);
-        emptyParent = findViewById(R.id.emptyParent);
+        stateLayout = findViewById(R.id.stateLayout);
         setPullEnable(false, false);
         recyclerView.setNotifyListener(new NotifyListener() {
             @Override
-            public void notifyDataSetChanged(int count) {
+            public void notifyDataSetChanged(int count, int delta) {
                 initDatasLayout(count);
             }
         });
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                checkViewport(false);
+            }
+        });
     }
 
-    private void initDatasLayout(int count){
-        if(emptyParent.getChildCount() == 0) return;
-        if(count > 0){
-            emptyParent.setVisibility(View.GONE);
-            recyclerView.setVisibility(View.VISIBLE);
-        }else{
-            recyclerView.setVisibility(View.GONE);
-            emptyParent.setVisibility(View.VISIBLE);
+    /**
+     * 分页窗口: 把可见范围告诉 listModel 换出远处的页, 可见区域附近被换出或者还没加载的页重新加载.
+     * 重新加载只通过 {@link LoadRequest} 结束, 要设置 RequestListener 或 PageLoader, 设置时已经检查过.
+     */
+    private void checkViewport(boolean force){
+        if(listModel == null || !(listModel.isWindowed() || listModel.hasPlaceholders())) return;
+        //还没有设置加载的监听
+        if(requestListener == null && pageLoader == null) return;
+        //子 view 的位置还是旧列表的, 差异应用后再检查
+        if(listModel.isDiffPending()) return;
+        int headerCount = recyclerView.getHeaderItemCount();
+        int size = listModel.size();
+        int first = Integer.MAX_VALUE, last = -1;
+        for(int i = 0, count = recyclerView.getChildCount(); i < count; i++){
+            int position = recyclerView.getChildAdapterPosition(recyclerView.getChildAt(i)) - headerCount;
+            if(position < 0 || position >= size) continue;
+            if(position < first) first = position;
+            if(position > last) last = position;
+        }
+        if(last < 0) return;
+        if(!force && first == viewportFirst && last == viewportLast) return;
+        viewportFirst = first;
+        viewportLast = last;
+        listModel.setViewport(first, last);
+
+        int[] missingPages = listModel.getMissingPages();
+        //滑出可见区域前后一页的重新加载取消掉, 不占用线程池, 可见的页才不会被拒绝
+        for(int i = reloadRequests.size() - 1; i >= 0; i--){
+            LoadRequest request = reloadRequests.get(i);
+            if(!contains(missingPages, request.getPage())) cancelRequest(request);
+        }
+        for(int missingPage : missingPages){
+            if(findReloadRequest(missingPage) != null) continue;
+            LoadRequest request = new LoadRequest(false, true, missingPage, ++generation);
+            reloadRequests.add(request);
+            dispatchLoadData(request);
         }
     }
 
+    private static boolean contains(int[] pages, int page){
+        for(int p : pages){
+            if(p == page) return true;
+        }
+        return false;
+    }
+
+    private LoadRequest findReloadRequest(int page){
+        for(int i = 0; i < reloadRequests.size(); i++){
+            if(reloadRequests.get(i).getPage() == page) return reloadRequests.get(i);
+        }
+        return null;
+    }
+
+    private void cancelReloadRequests(){
+        while(!reloadRequests.isEmpty()){
+            cancelRequest(reloadRequests.get(reloadRequests.size() - 1));
+        }
+    }
+
+    //只在状态变化时才改变可见性, 没有设置空布局时显示列表
+    private void initDatasLayout(int count){
+        stateLayout.showState(count > 0 ? StateLayout.STATE_CONTENT : StateLayout.STATE_EMPTY);
+    }
+
+    private int getDataCount(){
+        if(listModel != null) return listModel.size();
+        RecyclerView.Adapter adapter = recyclerView.getOriginAdapter();
+        return adapter == null ? 0 : adapter.getItemCount();
+    }
+
+    /** 空数据的布局, 第一次显示时才 inflate */
+    public void setEmptyLayout(@LayoutRes int layoutRes){
+        stateLayout.setStateLayout(StateLayout.STATE_EMPTY, layoutRes);
+    }
+
+    /** 没有数据时刷新失败显示的布局, 第一次显示时才 inflate */
+    public void setErrorLayout(@LayoutRes int layoutRes){
+        stateLayout.setStateLayout(StateLayout.STATE_ERROR, layoutRes);
+    }
+
+    /** 没有数据时刷新中显示的布局, 第一次显示时才 inflate */
+    public void setLoadingLayout(@LayoutRes int layoutRes){
+        stateLayout.setStateLayout(StateLayout.STATE_LOADING, layoutRes);
+    }
+
+    public StateLayout getStateLayout(){
+        return stateLayout;
+    }
+
+    /** 自定义刷新结束时显示的成功/失败图标, 每种结果只创建一次 */
+    public void setResultRenderer(SwipeRefreshLayout.RefreshResultRenderer renderer){
+        swipeRefreshLayout.setResultRenderer(renderer);
+    }
+
 
     public void setAdapter(RecyclerView.Adapter adapter){
         recyclerView.setAdapter(adapter);
     }
 
     public void setAdapter(RecyclerView.Adapter adapter, View emptyView){
-        emptyParent.removeAllViews();
-        if(emptyParent != null){
-            LayoutParams params = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
-            params.gravity = Gravity.CENTER;
-            emptyParent.addView(emptyView, params);
-        }
+        stateLayout.setStateView(StateLayout.STATE_EMPTY, emptyView);
         recyclerView.setAdapter(adapter);
         initDatasLayout(adapter.getItemCount());
     }
 
 
+    /**
+     * 数据由 listModel 管理, 用 {@link #loadFinish(boolean, List, boolean)} 提交每一页, adapter 从 listModel 取数据.
+     * listModel 设置了页窗口或者用总数撑开列表时, 占位的页用 {@link LoadRequest} 重新加载,
+     * 要用 {@link #setRequestListener(RequestListener)} 或 {@link #setPageLoader(PageLoader)}, 只有 PullListener 时抛出 IllegalStateException.
+     */
+    public void setAdapter(RecyclerView.Adapter adapter, PagedListModel<?> listModel){
+        bindListModel(adapter, listModel);
+        setAdapter(adapter);
+    }
+
+    public void setAdapter(RecyclerView.Adapter adapter, PagedListModel<?> listModel, View emptyView){
+        bindListModel(adapter, listModel);
+        setAdapter(adapter, emptyView);
+    }
+
+    private void bindListModel(RecyclerView.Adapter adapter, PagedListModel<?> listModel){
+        if(this.listModel != null){
+            this.listModel.setOnItemsAppliedListener(null);
+            this.listModel.setReloadSupported(true);
+        }
+        this.listModel = listModel;
+        updateReloadSupported();
+        listModel.bind(adapter);
+        listModel.setOnItemsAppliedListener(checkViewportRunnable);
+    }
+
+    /** 只设置了 PullListener 时不能重新加载占位的页, listModel 开启页窗口或占位时抛出异常 */
+    private void updateReloadSupported(){
+        if(listModel != null) listModel.setReloadSupported(listener == null || requestListener != null || pageLoader != null);
+    }
+
+    private final Runnable checkViewportRunnable = new Runnable() {
+        @Override
+        public void run() {
+            checkViewport(true);
+        }
+    };
+
+    public PagedListModel<?> getListModel(){
+        return listModel;
+    }
+
+    /**
+     * 冷启动时先显示上次保存的第一页, 刷新成功后保存新的第一页. 在 setAdapter(adapter, listModel) 之后调用.
+     */
+    public <T> void setSnapshotStore(final SnapshotStore<T> store){
+        if(listModel == null) throw new IllegalStateException("Call setAdapter(adapter, listModel) first.");
+        this.snapshotStore = store;
+        snapshotRestorable = listModel.size() == 0;
+        if(store == null || !snapshotRestorable) return;
+        store.restore(new SnapshotStore.Callback<T>() {
+            @Override
+            public void onRestored(List<T> items) {
+                //新数据已经到达, 快照作废
+                if(snapshotStore != store || !snapshotRestorable || items == null || items.isEmpty()) return;
+                snapshotRestorable = false;
+                submitPage(true, items, false);
+                initDatasLayout(items.size());
+            }
+        });
+    }
+
+
     public interface LoadListener extends SwipeRefreshLayout.OnRefreshListener, SwipeMenuRecyclerView.LoadMoreListener {}
     public interface PullListener{
         void onLoadData(boolean isRefresh, int page);
     }
 
+    /** 每次请求带上 {@link LoadRequest}, 用它结束请求, 过期的结果会被忽略 */
+    public interface RequestListener{
+        void onLoadData(LoadRequest request);
+    }
+
 
     private LoadListener pullListener = new LoadListener() {
         @Override
         public void onRefresh() {
-            if(listener != null) listener.onLoadData(true, 1);
+            //刷新会取消之前的刷新, 还没完成的加载更多和重新加载
+            cancelRequest(refreshRequest);
+            cancelReloadRequests();
+            if(loadMoreRequest != null){
+                cancelRequest(loadMoreRequest);
+                recyclerView.cancelLoadMore();
+            }
+            refreshRequest = new LoadRequest(true, 1, ++generation);
             //下拉刷新中不能加载更多
             recyclerView.setRefreshIngState();
+            //没有数据时显示加载中
+            if(getDataCount() == 0 && stateLayout.hasState(StateLayout.STATE_LOADING)){
+                stateLayout.showState(StateLayout.STATE_LOADING);
+            }
+            dispatchLoadData(refreshRequest);
         }
 
         @Override
         public void onLoadMore() {
-            if(listener != null) listener.onLoadData(false, page);
+            cancelRequest(loadMoreRequest);
+            loadMoreRequest = new LoadRequest(false, page, ++generation);
             //加载更多中不能下拉刷新
             swipeRefreshLayout.setEnabled(false);
+            dispatchLoadData(loadMoreRequest);
         }
     };
 
+    private void dispatchLoadData(LoadRequest request){
+        //旧接口分不清加载更多和重新加载, 重新加载只发给 RequestListener 和 PageLoader
+        if(listener != null && !request.isReload()) listener.onLoadData(request.isRefresh(), request.getPage());
+        if(requestListener != null) requestListener.onLoadData(request);
+        if(pageLoader != null) executeLoad(pageLoader, request);
+    }
+
+    /**
+     * 设置后台加载器, 在默认的线程池加载.
+     * 同一时间最多只有一个刷新和一个加载更多在进行, 新的刷新会取消(中断)旧的请求, 快速滑动也不会堆积请求.
+     */
+    public <T> void setPageLoader(PageLoader<T> pageLoader){
+        setPageLoader(pageLoader, getDefaultLoadExecutor());
+    }
+
+    /**
+     * @param executor 执行加载的线程池, 建议使用有界队列, 线程池拒绝的请求当作加载失败
+     */
+    public <T> void setPageLoader(PageLoader<T> pageLoader, @NonNull ExecutorService executor){
+        this.pageLoader = pageLoader;
+        this.loadExecutor = executor;
+        updateReloadSupported();
+        swipeRefreshLayout.setOnRefreshListener(this.pullListener);
+        recyclerView.setLoadMoreListener(this.pullListener);
+    }
+
+    private static synchronized ExecutorService getDefaultLoadExecutor(){
+        if(sLoadExecutor == null){
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(LOADER_THREADS, LOADER_THREADS, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(LOADER_QUEUE_SIZE), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(@NonNull Runnable r) {
+                    Thread thread = new Thread(r, "PageLoader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            sLoadExecutor = executor;
+        }
+        return sLoadExecutor;
+    }
+
+    private <T> void executeLoad(final PageLoader<T> loader, final LoadRequest request){
+        final ExecutorService executor = loadExecutor;
+        final FutureTask<PageLoader.Page<T>> task = new FutureTask<PageLoader.Page<T>>(new Callable<PageLoader.Page<T>>() {
+            @Override
+            public PageLoader.Page<T> call() throws Exception {
+                return loader.loadPage(request);
+            }
+        }) {
+            @Override
+            protected void done() {
+                if(isCancelled()) return;
+                //结果统一回到主线程处理
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        PageLoader.Page<T> page;
+                        try {
+                            page = get();
+                        } catch (InterruptedException | ExecutionException e) {
+                            loadError(request);
+                            return;
+                        }
+                        deliverPage(request, page);
+                    }
+                });
+            }
+        };
+        //取消时中断加载, 还在排队的直接移出队列
+        request.setOnCancelListener(new LoadRequest.OnCancelListener() {
+            @Override
+            public void onCancel(LoadRequest request) {
+                task.cancel(true);
+                if(executor instanceof ThreadPoolExecutor) ((ThreadPoolExecutor) executor).remove(task);
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            //线程池已满
+            loadError(request);
+        }
+    }
+
+    /** 在一次主线程回调里提交数据, 结束刷新/加载更多状态, 更新空布局 */
+    private <T> void deliverPage(LoadRequest request, PageLoader.Page<T> page){
+        if(!isCurrentRequest(request)) return;
+        if(page == null){
+            loadError(request);
+            return;
+        }
+        if(listModel != null && page.totalCount >= 0){
+            loadFinish(request, page.data, page.totalCount);
+        }else if(listModel != null){
+            loadFinish(request, page.data, page.hasMore, true);
+        }else{
+            loadFinish(request, page.hasMore, true);
+        }
+        initDatasLayout(getDataCount());
+    }
+
+    private void cancelRequest(LoadRequest request){
+        if(request == null) return;
+        if(request == refreshRequest) refreshRequest = null;
+        if(request == loadMoreRequest) loadMoreRequest = null;
+        reloadRequests.remove(request);
+        request.cancel();
+    }
+
     public void setPullListener(PullListener listener){
         this.listener = listener;
+        updateReloadSupported();
         swipeRefreshLayout.setOnRefreshListener(pullListener);
         recyclerView.setLoadMoreListener(pullListener);
     }
 
+    public void setRequestListener(RequestListener requestListener){
+        this.requestListener = requestListener;
+        updateReloadSupported();
+        swipeRefreshLayout.setOnRefreshListener(pullListener);
+        recyclerView.setLoadMoreListener(pullListener);
+    }
+
+    /** 取消正在进行的刷新, 加载更多和重新加载 */
+    public void cancelLoading(){
+        cancelReloadRequests();
+        if(refreshRequest != null){
+            cancelRequest(refreshRequest);
+            if(swipeRefreshLayout.isRefreshing()) swipeRefreshLayout.setRefreshing(false);
+            recyclerView.setRefreshError();
+        }
+        if(loadMoreRequest != null){
+            cancelRequest(loadMoreRequest);
+            swipeRefreshLayout.setEnabled(headerEnable);
+            recyclerView.cancelLoadMore();
+        }
+    }
+
     public void setPullEnable(boolean header, boolean footer){
         setPullEnable(header, footer, null);
     }
@@ -126,11 +462,41 @@ public class PullRecyclerView extends FrameLayout {
 
 
     /**
+     * 结束当前的刷新或加载更多请求, 加载更多已经被刷新取消时忽略. 同时有多个请求时用 {@link #loadFinish(LoadRequest, boolean, boolean)}.
+     *
      * @param isRefresh:是否是 true:刷新 (false: 加载更多)
      * @param hasMore : true:可以加载更多, false:已经是最有一页
      * @param noDataVisibleMore : true:显示提示item(如：----已经到底了----), false:不显示提示item
      */
     public void loadFinish(boolean isRefresh, boolean hasMore, boolean noDataVisibleMore){
+        LoadRequest request = pendingRequest(isRefresh);
+        if(request != null){
+            loadFinish(request, hasMore, noDataVisibleMore);
+        }else if(isRefresh){
+            applyLoadFinish(true, 1, hasMore, noDataVisibleMore);
+        }
+    }
+
+    /**
+     * 旧的 boolean 接口结束的请求, 重新加载不会发给 PullListener, 所以 false 只对应加载更多
+     */
+    private LoadRequest pendingRequest(boolean isRefresh){
+        return isRefresh ? refreshRequest : loadMoreRequest;
+    }
+
+    /**
+     * @return false: 请求已经取消或过期, 结果被忽略
+     */
+    public boolean loadFinish(LoadRequest request, boolean hasMore, boolean noDataVisibleMore){
+        if(!isCurrentRequest(request)) return false;
+        cancelRequest(request);
+        //重新加载不改变刷新和加载更多的状态
+        if(request.isReload()) return true;
+        applyLoadFinish(request.isRefresh(), request.getPage(), hasMore, noDataVisibleMore);
+        return true;
+    }
+
+    private void applyLoadFinish(boolean isRefresh, int requestPage, boolean hasMore, boolean noDataVisibleMore){
         if(isRefresh){
             page = hasMore ? 2:1;
             if(swipeRefreshLayout.isRefreshing()){
@@ -138,21 +504,157 @@ public class PullRecyclerView extends FrameLayout {
             }
             //重置加载更多item
             recyclerView.setRefreshSuccess(hasMore);
+            initDatasLayout(getDataCount());
         }else{
-            if(hasMore) page += 1;
+            if(hasMore) page = requestPage + 1;
             //重置刷新开关
             swipeRefreshLayout.setEnabled(headerEnable);
             recyclerView.loadMoreFinish(hasMore, noDataVisibleMore);
         }
     }
 
+    private boolean isCurrentRequest(LoadRequest request){
+        return request != null && !request.isCancelled()
+                && (request == refreshRequest || request == loadMoreRequest || reloadRequests.contains(request));
+    }
+
+    public <T> void loadFinish(boolean isRefresh, List<T> data, boolean hasMore){
+        loadFinish(isRefresh, data, hasMore, true);
+    }
+
+    /**
+     * 提交这一页的数据到 listModel, 在后台计算差异后只通知变化的 item.
+     *
+     * @param data : 这一页的数据
+     */
+    public <T> void loadFinish(boolean isRefresh, List<T> data, boolean hasMore, boolean noDataVisibleMore){
+        LoadRequest request = pendingRequest(isRefresh);
+        if(request != null){
+            loadFinish(request, data, hasMore, noDataVisibleMore);
+        }else if(isRefresh){
+            submitPage(true, data);
+            applyLoadFinish(true, 1, hasMore, noDataVisibleMore);
+        }
+    }
+
+    public <T> boolean loadFinish(LoadRequest request, List<T> data, boolean hasMore){
+        return loadFinish(request, data, hasMore, true);
+    }
+
+    /**
+     * 知道总数时结束请求: 刷新后列表直接撑开到 totalCount, 没加载的位置显示占位(listModel.get() 为 null),
+     * 滚动(包括 scrollToPosition)到哪里就加载哪里的页, 不再需要加载更多.
+     *
+     * @param totalCount 全部 item 的个数
+     * @return false: 请求已经取消或过期, 数据被丢弃
+     */
+    public <T> boolean loadFinish(LoadRequest request, List<T> data, int totalCount){
+        if(!isCurrentRequest(request)) return false;
+        if(!request.isRefresh()){
+            return loadFinish(request, data, listModel != null && listModel.size() + sizeOf(data) < totalCount, true);
+        }
+        submitFirstPage(data, totalCount);
+        loadFinish(request, false, false);
+        //刷新后列表没有滚动, 主动检查一次可见区域
+        checkViewport(true);
+        return true;
+    }
+
+    public <T> void loadFinish(boolean isRefresh, List<T> data, int totalCount){
+        LoadRequest request = pendingRequest(isRefresh);
+        if(request != null){
+            loadFinish(request, data, totalCount);
+        }else if(isRefresh){
+            submitFirstPage(data, totalCount);
+            applyLoadFinish(true, 1, false, false);
+            checkViewport(true);
+        }
+    }
+
+    private static int sizeOf(List<?> data){
+        return data == null ? 0 : data.size();
+    }
+
+    /**
+     * @return false: 请求已经取消或过期, 数据被丢弃
+     */
+    public <T> boolean loadFinish(LoadRequest request, List<T> data, boolean hasMore, boolean noDataVisibleMore){
+        if(!isCurrentRequest(request)) return false;
+        if(request.isReload()){
+            cancelRequest(request);
+            //还在计算差异时 listModel 会先保存这一页, 差异应用后替换并再检查可见区域
+            replacePage(request.getPage(), data);
+            //这一页的数量变了, 附近可能还有要重新加载的页
+            checkViewport(true);
+            return true;
+        }
+        submitPage(request.isRefresh(), data);
+        return loadFinish(request, hasMore, noDataVisibleMore);
+    }
+
+    private <T> void submitPage(boolean isRefresh, List<T> data){
+        submitPage(isRefresh, data, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void submitPage(boolean isRefresh, List<T> data, boolean saveSnapshot){
+        if(listModel == null) throw new IllegalStateException("Call setAdapter(adapter, listModel) first.");
+        //刷新后页码对应的范围变了, 还没完成的重新加载作废
+        if(isRefresh) cancelReloadRequests();
+        ((PagedListModel<T>) listModel).submitPage(isRefresh, data);
+        if(isRefresh && saveSnapshot){
+            snapshotRestorable = false;
+            if(snapshotStore != null) ((SnapshotStore<T>) snapshotStore).save(data);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void submitFirstPage(List<T> data, int totalCount){
+        if(listModel == null) throw new IllegalStateException("Call setAdapter(adapter, listModel) first.");
+        cancelReloadRequests();
+        ((PagedListModel<T>) listModel).submitFirstPage(data, totalCount);
+        snapshotRestorable = false;
+        if(snapshotStore != null) ((SnapshotStore<T>) snapshotStore).save(data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void replacePage(int page, List<T> data){
+        if(listModel == null) throw new IllegalStateException("Call setAdapter(adapter, listModel) first.");
+        ((PagedListModel<T>) listModel).replacePage(page, data);
+    }
+
     public void loadError(boolean isRefresh){
+        LoadRequest request = pendingRequest(isRefresh);
+        if(request != null){
+            loadError(request);
+        }else if(isRefresh){
+            applyLoadError(true);
+        }
+    }
+
+    /**
+     * @return false: 请求已经取消或过期, 被忽略
+     */
+    public boolean loadError(LoadRequest request){
+        if(!isCurrentRequest(request)) return false;
+        cancelRequest(request);
+        //重新加载失败时保留占位, 下次滚动到附近再加载
+        if(!request.isReload()) applyLoadError(request.isRefresh());
+        return true;
+    }
+
+    private void applyLoadError(boolean isRefresh){
         if(isRefresh){
             if(swipeRefreshLayout.isRefreshing()){
                 swipeRefreshLayout.setRefreshResult(false);
             }
             //重置加载更多item
             recyclerView.setRefreshError();
+            if(getDataCount() == 0 && stateLayout.hasState(StateLayout.STATE_ERROR)){
+                stateLayout.showState(StateLayout.STATE_ERROR);
+            }else{
+                initDatasLayout(getDataCount());
+            }
         }else{
             //重置刷新开关
             swipeRefreshLayout.setEnabled(headerEnable);
@@ -0,0 +1,212 @@
+package com.shihang.pulltorefresh;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 把最后一次刷新成功的第一页保存到文件, 下次启动时先显示它, 新数据到达后再通过差异更新替换.
+ * 读写都在后台线程, 回调在主线程.
+ * <p>
+ * 文件格式: magic, 格式版本, 数据版本, item 个数, 然后是 {@link Codec} 写入的每个 item.
+ * 数据版本不一致或文件损坏时丢弃这个文件. 超过大小限制时只保存能放下的前面的 item.
+ */
+public class SnapshotStore<T> {
+
+    /** item 和二进制数据的转换, 读写顺序必须一致, 每个 item 至少写一个字节 */
+    public interface Codec<T> {
+        void write(DataOutput out, T item) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    public interface Callback<T> {
+        /**
+         * @param items null: 没有可用的快照
+         */
+        void onRestored(List<T> items);
+    }
+
+    private static final int MAGIC = 0x50524653; // "PRFS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int DEFAULT_MAX_BYTES = 256 * 1024;
+
+    private static ExecutorService sIoExecutor;
+
+    private final File file;
+    private final int version;
+    private final Codec<T> codec;
+    private final Executor ioExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int maxBytes = DEFAULT_MAX_BYTES;
+    private int maxItems = Integer.MAX_VALUE;
+
+    /**
+     * @param file    快照文件, 例如 new File(context.getCacheDir(), "feed.snapshot")
+     * @param version 数据版本, item 的格式变化时增加, 旧版本的快照会被丢弃
+     */
+    public SnapshotStore(@NonNull File file, int version, @NonNull Codec<T> codec) {
+        this(file, version, codec, getDefaultIoExecutor());
+    }
+
+    public SnapshotStore(@NonNull File file, int version, @NonNull Codec<T> codec, @NonNull Executor ioExecutor) {
+        this.file = file;
+        this.version = version;
+        this.codec = codec;
+        this.ioExecutor = ioExecutor;
+    }
+
+    private static synchronized Executor getDefaultIoExecutor() {
+        if (sIoExecutor == null) {
+            // 单线程, 保证写入按顺序完成
+            sIoExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable r) {
+                    Thread thread = new Thread(r, "SnapshotStore-io");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sIoExecutor;
+    }
+
+    /** 文件大小上限, 包括文件头 */
+    public void setMaxBytes(int maxBytes) {
+        if (maxBytes <= HEADER_SIZE) throw new IllegalArgumentException("maxBytes must be greater than " + HEADER_SIZE);
+        this.maxBytes = maxBytes;
+    }
+
+    /** 最多保存的 item 个数 */
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    /** 在后台线程保存, 数据会先复制一份 */
+    public void save(List<T> items) {
+        if (items == null) return;
+        final List<T> copy = new ArrayList<>(items.subList(0, Math.min(items.size(), maxItems)));
+        final int limit = maxBytes;
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(copy, limit);
+                } catch (IOException | RuntimeException e) {
+                    // Codec 抛出的 RuntimeException 也在这里处理, 不能让它结束 io 线程
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    /** 在后台线程读取, 在主线程回调 */
+    public void restore(@NonNull final Callback<T> callback) {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> items;
+                try {
+                    items = read();
+                } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                    // 文件损坏或 Codec 读不了旧格式: 删掉文件, 否则每次启动都会失败
+                    items = null;
+                    file.delete();
+                }
+                final List<T> result = items;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onRestored(result);
+                    }
+                });
+            }
+        });
+    }
+
+    public void clear() {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                file.delete();
+            }
+        });
+    }
+
+    private void write(List<T> items, int limit) throws IOException {
+        // 先写到内存, 超过大小限制时只保留前面的 item
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(limit, 8 * 1024));
+        DataOutputStream body = new DataOutputStream(buffer);
+        int count = 0, length = 0;
+        for (int i = 0; i < items.size(); i++) {
+            codec.write(body, items.get(i));
+            if (HEADER_SIZE + body.size() > limit) break;
+            count++;
+            length = body.size();
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(version);
+            out.writeInt(count);
+            out.write(buffer.toByteArray(), 0, length);
+            out.flush();
+        } finally {
+            out.close();
+        }
+        // 写完再替换, 中途失败不会留下半个文件
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Rename failed: " + temp);
+        }
+    }
+
+    private List<T> read() throws IOException {
+        if (!file.exists()) return null;
+        if (file.length() > maxBytes) {
+            file.delete();
+            return null;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != version) {
+                file.delete();
+                return null;
+            }
+            int count = in.readInt();
+            if (count < 0 || count > maxItems || count > file.length() - HEADER_SIZE) {
+                // 每个 item 至少占一个字节, 超出的个数说明文件已损坏
+                throw new IOException("Bad item count: " + count);
+            }
+            List<T> items = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                items.add(codec.read(in));
+            }
+            return Collections.unmodifiableList(items);
+        } finally {
+            in.close();
+        }
+    }
+}
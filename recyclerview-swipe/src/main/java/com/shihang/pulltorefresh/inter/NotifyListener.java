@@ -2,6 +2,12 @@ package com.shihang.pulltorefresh.inter;
 
 public interface NotifyListener {
 
-    void notifyDataSetChanged(int count);
+    /**
+     * 数据变化, 同一帧内的多次变化只回调一次
+     *
+     * @param count 当前 item 个数
+     * @param delta 和上次回调相比 item 个数的变化
+     */
+    void notifyDataSetChanged(int count, int delta);
 
 }
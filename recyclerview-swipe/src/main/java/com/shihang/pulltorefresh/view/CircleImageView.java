@@ -17,16 +17,19 @@ package com.shihang.pulltorefresh.view;
  */
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
 import android.graphics.RadialGradient;
 import android.graphics.Shader;
 import android.graphics.drawable.ShapeDrawable;
 import android.graphics.drawable.shapes.OvalShape;
 import android.support.v4.content.ContextCompat;
+import android.support.v4.util.LruCache;
 import android.support.v4.view.ViewCompat;
-import android.view.View;
 import android.view.animation.Animation;
 import android.widget.ImageView;
 
@@ -45,6 +48,12 @@ public class CircleImageView extends ImageView {
     private static final float SHADOW_RADIUS = 3.5f;
     private static final int SHADOW_ELEVATION = 4;
 
+    // Pre-rendered shadows below API 21, keyed by size and shadow metrics so that views of the same
+    // diameter and density share one bitmap. Only the last few sizes are kept, a view holds on to its
+    // own bitmap so eviction never affects a view that is drawing it.
+    private static final int SHADOW_CACHE_SIZE = 4;
+    private static final LruCache<Long, Bitmap> sShadowCache = new LruCache<>(SHADOW_CACHE_SIZE);
+
     private Animation.AnimationListener mListener;
     int mShadowRadius;
 
@@ -61,11 +70,9 @@ public class CircleImageView extends ImageView {
             circle = new ShapeDrawable(new OvalShape());
             ViewCompat.setElevation(this, SHADOW_ELEVATION * density);
         } else {
-            OvalShape oval = new OvalShadow(mShadowRadius);
+            // The blurred shadow is drawn from a cached bitmap, so the view keeps its hardware layer.
+            OvalShape oval = new OvalShadow(mShadowRadius, shadowXOffset, shadowYOffset);
             circle = new ShapeDrawable(oval);
-            setLayerType(View.LAYER_TYPE_SOFTWARE, circle.getPaint());
-            circle.getPaint().setShadowLayer(mShadowRadius, shadowXOffset, shadowYOffset,
-                    KEY_SHADOW_COLOR);
             final int padding = mShadowRadius;
             // set padding so the inner image sits correctly within the shadow.
             setPadding(padding, padding, padding, padding);
@@ -123,36 +130,76 @@ public class CircleImageView extends ImageView {
         }
     }
 
+    /**
+     * Get the shadow of a circle of the given size, it is rendered in software once and then shared.
+     */
+    private static Bitmap getShadowBitmap(int width, int height, int shadowRadius, int shadowXOffset,
+                                          int shadowYOffset) {
+        if (width <= 0 || height <= 0) return null;
+        final long key = ((long) (width & 0xFFFF) << 48) | ((long) (height & 0xFFFF) << 32)
+                | ((long) (shadowRadius & 0xFFFF) << 16) | ((shadowXOffset & 0xFF) << 8) | (shadowYOffset & 0xFF);
+        Bitmap bitmap = sShadowCache.get(key);
+        if (bitmap == null) {
+            bitmap = renderShadow(width, height, shadowRadius, shadowXOffset, shadowYOffset);
+            sShadowCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap renderShadow(int width, int height, int shadowRadius, int shadowXOffset,
+                                       int shadowYOffset) {
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(bitmap);
+        final int centerX = width / 2;
+        final int centerY = height / 2;
+        final int circleRadius = width / 2 - shadowRadius;
+
+        // A bitmap canvas is always software, so the blur of the shadow layer is supported here.
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(Color.BLACK);
+        paint.setShadowLayer(shadowRadius, shadowXOffset, shadowYOffset, KEY_SHADOW_COLOR);
+        canvas.drawCircle(centerX, centerY, circleRadius, paint);
+        // Keep the shadow only, the circle is filled with the background color when drawn.
+        paint.clearShadowLayer();
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+        canvas.drawCircle(centerX, centerY, circleRadius, paint);
+
+        final Paint shadowPaint = new Paint();
+        shadowPaint.setShader(new RadialGradient(width / 2, width / 2,
+                shadowRadius, new int[]{FILL_SHADOW_COLOR, Color.TRANSPARENT},
+                null, Shader.TileMode.CLAMP));
+        canvas.drawCircle(centerX, centerY, width / 2, shadowPaint);
+        return bitmap;
+    }
+
     private class OvalShadow extends OvalShape {
-        private RadialGradient mRadialGradient;
-        private Paint mShadowPaint;
+        private final Paint mShadowPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        private final int mShadowXOffset;
+        private final int mShadowYOffset;
+        private Bitmap mShadowBitmap;
 
-        OvalShadow(int shadowRadius) {
+        OvalShadow(int shadowRadius, int shadowXOffset, int shadowYOffset) {
             super();
-            mShadowPaint = new Paint();
             mShadowRadius = shadowRadius;
-            updateRadialGradient((int) rect().width());
+            mShadowXOffset = shadowXOffset;
+            mShadowYOffset = shadowYOffset;
         }
 
         @Override
         protected void onResize(float width, float height) {
             super.onResize(width, height);
-            updateRadialGradient((int) width);
+            mShadowBitmap = getShadowBitmap((int) width, (int) height, mShadowRadius, mShadowXOffset,
+                    mShadowYOffset);
         }
 
         @Override
         public void draw(Canvas canvas, Paint paint) {
             final int viewWidth = CircleImageView.this.getWidth();
             final int viewHeight = CircleImageView.this.getHeight();
-            canvas.drawCircle(viewWidth / 2, viewHeight / 2, viewWidth / 2, mShadowPaint);
+            if (mShadowBitmap != null) {
+                canvas.drawBitmap(mShadowBitmap, 0, 0, mShadowPaint);
+            }
             canvas.drawCircle(viewWidth / 2, viewHeight / 2, viewWidth / 2 - mShadowRadius, paint);
         }
-
-        private void updateRadialGradient(int diameter) {
-            mRadialGradient = new RadialGradient(diameter / 2, diameter / 2,
-                    mShadowRadius, new int[]{FILL_SHADOW_COLOR, Color.TRANSPARENT},
-                    null, Shader.TileMode.CLAMP);
-            mShadowPaint.setShader(mRadialGradient);
-        }
     }
 }
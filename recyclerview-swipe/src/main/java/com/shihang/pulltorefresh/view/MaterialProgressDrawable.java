@@ -15,6 +15,7 @@ package com.shihang.pulltorefresh.view;
  * limitations under the License.
  */
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Canvas;
@@ -28,25 +29,24 @@ import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.SystemClock;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
 import android.util.DisplayMetrics;
-import android.view.View;
-import android.view.animation.Animation;
+import android.view.Choreographer;
 import android.view.animation.Interpolator;
-import android.view.animation.LinearInterpolator;
-import android.view.animation.Transformation;
+
+import com.yanzhenjie.recyclerview.swipe.core.ProgressMath;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.ArrayList;
 
 /**
  * Fancy progress indicator for Material theme.
  */
 public class MaterialProgressDrawable extends Drawable implements Animatable {
-    private static final Interpolator LINEAR_INTERPOLATOR = new LinearInterpolator();
     static final Interpolator MATERIAL_INTERPOLATOR = new FastOutSlowInInterpolator();
 
     private static final float FULL_ROTATION = 1080.0f;
@@ -89,14 +89,14 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
     private static final int ANIMATION_DURATION = 1332;
 
     /**
-     * The number of points in the progress "star".
+     * Delay between two frames of the spin in milliseconds, only used before API 16.
      */
-    private static final float NUM_POINTS = 5f;
+    private static final long FRAME_DELAY = 16;
+
     /**
-     * The list of animators operating on this drawable.
+     * The number of points in the progress "star".
      */
-    private final ArrayList<Animation> mAnimators = new ArrayList<Animation>();
-
+    private static final float NUM_POINTS = 5f;
     /**
      * The indicator ring, used to manage animation state.
      */
@@ -122,22 +122,35 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
     private static final float MAX_PROGRESS_ARC = .8f;
 
     private Resources mResources;
-    private View mParent;
-    private Animation mAnimation;
+    // The spin is stepped once per display frame by a Choreographer frame callback, using the frame
+    // time. It is only posted while this drawable is visible and has a callback, so it pauses when the
+    // host view is hidden or detached. Before API 16 the drawable schedules itself instead.
+    private Object mFrameCallback;
+    private final Runnable mFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mFramePosted = false;
+            doFrame(SystemClock.uptimeMillis());
+        }
+    };
+    private boolean mFramePosted;
+    private boolean mRunning;
+    // Start of the current cycle in uptime milliseconds, -1 until the first frame after start or resume.
+    private long mStartTime = -1;
+    private long mDuration;
+    private long mPausedElapsed;
     float mRotationCount;
     private double mWidth;
     private double mHeight;
     boolean mFinishing;
 
-    MaterialProgressDrawable(Context context, View parent) {
-        mParent = parent;
+    MaterialProgressDrawable(Context context) {
         mResources = context.getResources();
 
         mRing = new Ring(mCallback);
         mRing.setColors(COLORS);
 
         updateSizes(DEFAULT);
-        setupAnimators();
     }
 
     private void setSizeParameters(double progressCircleWidth, double progressCircleHeight,
@@ -237,6 +250,10 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
 
     @Override
     public void draw(Canvas c) {
+        if (mRunning && !mFramePosted) {
+            // Drawn again after the frames stopped, e.g. attached to a view again.
+            postFrame();
+        }
         final Rect bounds = getBounds();
         final int saveCount = c.save();
         c.rotate(mRotation, bounds.exactCenterX(), bounds.exactCenterY());
@@ -276,66 +293,140 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
 
     @Override
     public boolean isRunning() {
-        final ArrayList<Animation> animators = mAnimators;
-        final int N = animators.size();
-        for (int i = 0; i < N; i++) {
-            final Animation animator = animators.get(i);
-            if (animator.hasStarted() && !animator.hasEnded()) {
-                return true;
+        return mRunning;
+    }
+
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        final boolean changed = super.setVisible(visible, restart);
+        if (mRunning) {
+            if (visible) {
+                // The host may have been changed, post the frame again.
+                removeFrame();
+                postFrame();
+            } else {
+                pause(SystemClock.uptimeMillis());
             }
         }
-        return false;
+        return changed;
     }
 
     @Override
     public void start() {
-        mAnimation.reset();
         mRing.storeOriginals();
         // Already showing some part of the ring
         if (mRing.getEndTrim() != mRing.getStartTrim()) {
             mFinishing = true;
-            mAnimation.setDuration(ANIMATION_DURATION / 2);
-            mParent.startAnimation(mAnimation);
+            mDuration = ANIMATION_DURATION / 2;
         } else {
             mRing.setColorIndex(0);
             mRing.resetOriginals();
-            mAnimation.setDuration(ANIMATION_DURATION);
-            mParent.startAnimation(mAnimation);
-        }
+            mDuration = ANIMATION_DURATION;
+        }
+        mRotationCount = 0;
+        mRunning = true;
+        mStartTime = -1;
+        mPausedElapsed = 0;
+        removeFrame();
+        postFrame();
     }
 
     @Override
     public void stop() {
-        mParent.clearAnimation();
+        mRunning = false;
+        removeFrame();
         setRotation(0);
         mRing.setShowArrow(false);
         mRing.setColorIndex(0);
         mRing.resetOriginals();
     }
 
-    float getMinProgressArc(Ring ring) {
-        return (float) Math.toRadians(
-                ring.getStrokeWidth() / (2 * Math.PI * ring.getCenterRadius()));
+    private void postFrame() {
+        if (mFramePosted || !mRunning || !isVisible() || getCallback() == null) return;
+        mFramePosted = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            postFrameCallback();
+        } else {
+            scheduleSelf(mFrameRunnable, SystemClock.uptimeMillis() + FRAME_DELAY);
+        }
+    }
+
+    private void removeFrame() {
+        if (!mFramePosted) return;
+        mFramePosted = false;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        } else {
+            unscheduleSelf(mFrameRunnable);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    mFramePosted = false;
+                    // The frame time uses the same clock as SystemClock.uptimeMillis().
+                    MaterialProgressDrawable.this.doFrame(frameTimeNanos / 1000000);
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    /**
+     * Stop posting frames, and remember the phase of the cycle to resume from.
+     */
+    private void pause(long now) {
+        removeFrame();
+        if (mStartTime >= 0) {
+            mPausedElapsed = now - mStartTime;
+            mStartTime = -1;
+        }
     }
 
-    // Adapted from ArgbEvaluator.java
-    private int evaluateColorChange(float fraction, int startValue, int endValue) {
-        int startInt = (Integer) startValue;
-        int startA = (startInt >> 24) & 0xff;
-        int startR = (startInt >> 16) & 0xff;
-        int startG = (startInt >> 8) & 0xff;
-        int startB = startInt & 0xff;
+    /**
+     * Step the spin to the frame time and post the next frame.
+     */
+    void doFrame(long frameTime) {
+        if (!mRunning) return;
+        if (!isVisible() || getCallback() == null) {
+            pause(frameTime);
+            return;
+        }
+        if (mStartTime < 0) {
+            mStartTime = frameTime - mPausedElapsed;
+            mPausedElapsed = 0;
+        }
+        final float fraction = Math.min(1f, (frameTime - mStartTime) / (float) mDuration);
+        applySpin(fraction);
+        if (fraction >= 1f) {
+            onCycleEnd();
+            mStartTime = frameTime;
+        }
+        postFrame();
+    }
 
-        int endInt = (Integer) endValue;
-        int endA = (endInt >> 24) & 0xff;
-        int endR = (endInt >> 16) & 0xff;
-        int endG = (endInt >> 8) & 0xff;
-        int endB = endInt & 0xff;
+    private void onCycleEnd() {
+        final Ring ring = mRing;
+        ring.storeOriginals();
+        ring.goToNextColor();
+        ring.setStartTrim(ring.getEndTrim());
+        if (mFinishing) {
+            // finished closing the last ring from the swipe gesture; go
+            // into progress mode
+            mFinishing = false;
+            mDuration = ANIMATION_DURATION;
+            ring.setShowArrow(false);
+        } else {
+            mRotationCount = (mRotationCount + 1) % (NUM_POINTS);
+        }
+    }
 
-        return (int) ((startA + (int) (fraction * (endA - startA))) << 24)
-                | (int) ((startR + (int) (fraction * (endR - startR))) << 16)
-                | (int) ((startG + (int) (fraction * (endG - startG))) << 8)
-                | (int) ((startB + (int) (fraction * (endB - startB))));
+    float getMinProgressArc(Ring ring) {
+        return ring.getMinProgressArc();
     }
 
     /**
@@ -348,9 +439,9 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
             // scale the interpolatedTime so that the full
             // transformation from 0 - 1 takes place in the
             // remaining time
-            ring.setColor(evaluateColorChange((interpolatedTime - COLOR_START_DELAY_OFFSET)
-                            / (1.0f - COLOR_START_DELAY_OFFSET), ring.getStartingColor(),
-                    ring.getNextColor()));
+            ring.setColor(ProgressMath.evaluateColor(
+                    ProgressMath.scaleFraction(interpolatedTime, COLOR_START_DELAY_OFFSET),
+                    ring.getStartingColor(), ring.getNextColor()));
         }
     }
 
@@ -372,92 +463,52 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
         ring.setRotation(rotation);
     }
 
-    private void setupAnimators() {
+    void applySpin(float interpolatedTime) {
         final Ring ring = mRing;
-        final Animation animation = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                if (mFinishing) {
-                    applyFinishTranslation(interpolatedTime, ring);
-                } else {
-                    // The minProgressArc is calculated from 0 to create an
-                    // angle that matches the stroke width.
-                    final float minProgressArc = getMinProgressArc(ring);
-                    final float startingEndTrim = ring.getStartingEndTrim();
-                    final float startingTrim = ring.getStartingStartTrim();
-                    final float startingRotation = ring.getStartingRotation();
-
-                    updateRingColor(interpolatedTime, ring);
-
-                    // Moving the start trim only occurs in the first 50% of a
-                    // single ring animation
-                    if (interpolatedTime <= START_TRIM_DURATION_OFFSET) {
-                        // scale the interpolatedTime so that the full
-                        // transformation from 0 - 1 takes place in the
-                        // remaining time
-                        final float scaledTime = (interpolatedTime)
-                                / (1.0f - START_TRIM_DURATION_OFFSET);
-                        final float startTrim = startingTrim
-                                + ((MAX_PROGRESS_ARC - minProgressArc) * MATERIAL_INTERPOLATOR
-                                .getInterpolation(scaledTime));
-                        ring.setStartTrim(startTrim);
-                    }
-
-                    // Moving the end trim starts after 50% of a single ring
-                    // animation completes
-                    if (interpolatedTime > END_TRIM_START_DELAY_OFFSET) {
-                        // scale the interpolatedTime so that the full
-                        // transformation from 0 - 1 takes place in the
-                        // remaining time
-                        final float minArc = MAX_PROGRESS_ARC - minProgressArc;
-                        float scaledTime = (interpolatedTime - START_TRIM_DURATION_OFFSET)
-                                / (1.0f - START_TRIM_DURATION_OFFSET);
-                        final float endTrim = startingEndTrim
-                                + (minArc * MATERIAL_INTERPOLATOR.getInterpolation(scaledTime));
-                        ring.setEndTrim(endTrim);
-                    }
-
-                    final float rotation = startingRotation + (0.25f * interpolatedTime);
-                    ring.setRotation(rotation);
-
-                    float groupRotation = ((FULL_ROTATION / NUM_POINTS) * interpolatedTime)
-                            + (FULL_ROTATION * (mRotationCount / NUM_POINTS));
-                    setRotation(groupRotation);
-                }
-            }
-        };
-        animation.setRepeatCount(Animation.INFINITE);
-        animation.setRepeatMode(Animation.RESTART);
-        animation.setInterpolator(LINEAR_INTERPOLATOR);
-        animation.setAnimationListener(new Animation.AnimationListener() {
-
-            @Override
-            public void onAnimationStart(Animation animation) {
-                mRotationCount = 0;
+        if (mFinishing) {
+            applyFinishTranslation(interpolatedTime, ring);
+        } else {
+            // The minProgressArc is calculated from 0 to create an
+            // angle that matches the stroke width.
+            final float minProgressArc = getMinProgressArc(ring);
+            final float startingEndTrim = ring.getStartingEndTrim();
+            final float startingTrim = ring.getStartingStartTrim();
+            final float startingRotation = ring.getStartingRotation();
+
+            updateRingColor(interpolatedTime, ring);
+
+            // Moving the start trim only occurs in the first 50% of a
+            // single ring animation
+            if (interpolatedTime <= START_TRIM_DURATION_OFFSET) {
+                // scale the interpolatedTime so that the full
+                // transformation from 0 - 1 takes place in the
+                // remaining time
+                final float scaledTime = (interpolatedTime)
+                        / (1.0f - START_TRIM_DURATION_OFFSET);
+                final float startTrim = startingTrim
+                        + ((MAX_PROGRESS_ARC - minProgressArc) * MATERIAL_INTERPOLATOR
+                        .getInterpolation(scaledTime));
+                ring.setStartTrim(startTrim);
             }
 
-            @Override
-            public void onAnimationEnd(Animation animation) {
-                // do nothing
+            // Moving the end trim starts after 50% of a single ring
+            // animation completes
+            if (interpolatedTime > END_TRIM_START_DELAY_OFFSET) {
+                // scale the interpolatedTime so that the full
+                // transformation from 0 - 1 takes place in the
+                // remaining time
+                final float minArc = MAX_PROGRESS_ARC - minProgressArc;
+                float scaledTime = ProgressMath.scaleFraction(interpolatedTime, START_TRIM_DURATION_OFFSET);
+                final float endTrim = startingEndTrim
+                        + (minArc * MATERIAL_INTERPOLATOR.getInterpolation(scaledTime));
+                ring.setEndTrim(endTrim);
             }
 
-            @Override
-            public void onAnimationRepeat(Animation animation) {
-                ring.storeOriginals();
-                ring.goToNextColor();
-                ring.setStartTrim(ring.getEndTrim());
-                if (mFinishing) {
-                    // finished closing the last ring from the swipe gesture; go
-                    // into progress mode
-                    mFinishing = false;
-                    animation.setDuration(ANIMATION_DURATION);
-                    ring.setShowArrow(false);
-                } else {
-                    mRotationCount = (mRotationCount + 1) % (NUM_POINTS);
-                }
-            }
-        });
-        mAnimation = animation;
+            final float rotation = startingRotation + (0.25f * interpolatedTime);
+            ring.setRotation(rotation);
+
+            setRotation(ProgressMath.groupRotation(interpolatedTime, mRotationCount, FULL_ROTATION, NUM_POINTS));
+        }
     }
 
     private final Callback mCallback = new Callback() {
@@ -499,9 +550,14 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
         private float mStartingEndTrim;
         private float mStartingRotation;
         private boolean mShowArrow;
-        private Path mArrow;
+        private final Path mArrow = new Path();
+        // The arrow path only changes with its scale and the size of the ring, it is rebuilt when one of them changes.
+        private boolean mArrowDirty = true;
+        private float mArrowCenterX;
+        private float mArrowCenterY;
         private float mArrowScale;
         private double mRingCenterRadius;
+        private float mMinProgressArc;
         private int mArrowWidth;
         private int mArrowHeight;
         private int mAlpha;
@@ -518,6 +574,8 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
 
             mArrowPaint.setStyle(Style.FILL);
             mArrowPaint.setAntiAlias(true);
+
+            mArrow.setFillType(Path.FillType.EVEN_ODD);
         }
 
         public void setBackgroundColor(int color) {
@@ -533,6 +591,7 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
         public void setArrowDimensions(float width, float height) {
             mArrowWidth = (int) width;
             mArrowHeight = (int) height;
+            mArrowDirty = true;
         }
 
         /**
@@ -562,29 +621,30 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
 
         private void drawTriangle(Canvas c, float startAngle, float sweepAngle, Rect bounds) {
             if (mShowArrow) {
-                if (mArrow == null) {
-                    mArrow = new Path();
-                    mArrow.setFillType(Path.FillType.EVEN_ODD);
-                } else {
+                final float centerX = bounds.exactCenterX();
+                final float centerY = bounds.exactCenterY();
+                if (mArrowDirty || centerX != mArrowCenterX || centerY != mArrowCenterY) {
+                    mArrowDirty = false;
+                    mArrowCenterX = centerX;
+                    mArrowCenterY = centerY;
                     mArrow.reset();
-                }
 
-                // Adjust the position of the triangle so that it is inset as
-                // much as the arc, but also centered on the arc.
-                float inset = (int) mStrokeInset / 2 * mArrowScale;
-                float x = (float) (mRingCenterRadius * Math.cos(0) + bounds.exactCenterX());
-                float y = (float) (mRingCenterRadius * Math.sin(0) + bounds.exactCenterY());
-
-                // Update the path each time. This works around an issue in SKIA
-                // where concatenating a rotation matrix to a scale matrix
-                // ignored a starting negative rotation. This appears to have
-                // been fixed as of API 21.
-                mArrow.moveTo(0, 0);
-                mArrow.lineTo(mArrowWidth * mArrowScale, 0);
-                mArrow.lineTo((mArrowWidth * mArrowScale / 2), (mArrowHeight
-                        * mArrowScale));
-                mArrow.offset(x - inset, y);
-                mArrow.close();
+                    // Adjust the position of the triangle so that it is inset as
+                    // much as the arc, but also centered on the arc.
+                    float inset = (int) mStrokeInset / 2 * mArrowScale;
+                    float x = (float) (mRingCenterRadius + centerX);
+
+                    // Build the path instead of scaling it. This works around an issue in SKIA
+                    // where concatenating a rotation matrix to a scale matrix
+                    // ignored a starting negative rotation. This appears to have
+                    // been fixed as of API 21.
+                    mArrow.moveTo(0, 0);
+                    mArrow.lineTo(mArrowWidth * mArrowScale, 0);
+                    mArrow.lineTo((mArrowWidth * mArrowScale / 2), (mArrowHeight
+                            * mArrowScale));
+                    mArrow.offset(x - inset, centerY);
+                    mArrow.close();
+                }
                 // draw a triangle
                 mArrowPaint.setColor(mCurrentColor);
                 c.rotate(startAngle + sweepAngle - ARROW_OFFSET_ANGLE, bounds.exactCenterX(),
@@ -668,6 +728,7 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
         public void setStrokeWidth(float strokeWidth) {
             mStrokeWidth = strokeWidth;
             mPaint.setStrokeWidth(strokeWidth);
+            updateMinProgressArc();
             invalidateSelf();
         }
 
@@ -730,6 +791,7 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
                 insets = (float) (minEdge / 2.0f - mRingCenterRadius);
             }
             mStrokeInset = insets;
+            mArrowDirty = true;
         }
 
         @SuppressWarnings("unused")
@@ -743,12 +805,25 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
          */
         public void setCenterRadius(double centerRadius) {
             mRingCenterRadius = centerRadius;
+            mArrowDirty = true;
+            updateMinProgressArc();
         }
 
         public double getCenterRadius() {
             return mRingCenterRadius;
         }
 
+        /**
+         * @return The smallest arc of the ring, it matches the stroke width.
+         */
+        public float getMinProgressArc() {
+            return mMinProgressArc;
+        }
+
+        private void updateMinProgressArc() {
+            mMinProgressArc = ProgressMath.minProgressArc(mStrokeWidth, mRingCenterRadius);
+        }
+
         /**
          * @param show Set to true to show the arrow head on the progress spinner.
          */
@@ -765,6 +840,7 @@ public class MaterialProgressDrawable extends Drawable implements Animatable {
         public void setArrowScale(float scale) {
             if (scale != mArrowScale) {
                 mArrowScale = scale;
+                mArrowDirty = true;
                 invalidateSelf();
             }
         }
@@ -0,0 +1,158 @@
+package com.shihang.pulltorefresh.view;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewStub;
+
+/**
+ * 内容, 空数据, 加载失败, 首次加载中四种状态的容器, 同一时间只显示一种.
+ * 第一个子 View 是内容, 其他状态用 ViewStub 占位, 第一次显示时才 inflate.
+ * 只测量和布局当前显示的状态, 其他状态不参与测量.
+ */
+public class StateLayout extends ViewGroup {
+
+    public static final int STATE_CONTENT = 0;
+    public static final int STATE_EMPTY = 1;
+    public static final int STATE_ERROR = 2;
+    public static final int STATE_LOADING = 3;
+
+    private static final int STATE_COUNT = 4;
+
+    private final View[] stateViews = new View[STATE_COUNT];
+    private final ViewStub[] stubs = new ViewStub[STATE_COUNT];
+    private int state = STATE_CONTENT;
+
+    public StateLayout(Context context) {
+        this(context, null);
+    }
+
+    public StateLayout(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    @Override
+    protected void onFinishInflate() {
+        super.onFinishInflate();
+        if (getChildCount() > 0) stateViews[STATE_CONTENT] = getChildAt(0);
+        for (int i = STATE_EMPTY; i < STATE_COUNT; i++) {
+            ViewStub stub = new ViewStub(getContext());
+            addView(stub, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+            stubs[i] = stub;
+        }
+    }
+
+    /**
+     * 状态的布局, 第一次显示这个状态时才 inflate.
+     */
+    public void setStateLayout(int state, @LayoutRes int layoutRes) {
+        checkState(state);
+        ViewStub stub = stubs[state];
+        if (stub != null && stub.getParent() == this) {
+            stub.setLayoutResource(layoutRes);
+        } else {
+            setStateView(state, inflate(getContext(), layoutRes, null));
+        }
+    }
+
+    public void setStateView(int state, View view) {
+        checkState(state);
+        View old = stateViews[state] != null ? stateViews[state] : stubs[state];
+        int index = old == null ? -1 : indexOfChild(old);
+        if (old != null) removeView(old);
+        stubs[state] = null;
+        stateViews[state] = view;
+        if (view == null) {
+            if (this.state == state) this.state = STATE_CONTENT;
+            return;
+        }
+        view.setVisibility(this.state == state ? VISIBLE : GONE);
+        addView(view, index, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+    }
+
+    /**
+     * @return null: 还没有 inflate 或者没有设置
+     */
+    public View getStateView(int state) {
+        checkState(state);
+        return stateViews[state];
+    }
+
+    public boolean hasState(int state) {
+        checkState(state);
+        if (stateViews[state] != null) return true;
+        ViewStub stub = stubs[state];
+        return stub != null && stub.getLayoutResource() != 0;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * 切换状态, 只在状态变化时改变可见性. 没有设置的状态显示内容.
+     */
+    public void showState(int state) {
+        checkState(state);
+        if (!hasState(state)) state = STATE_CONTENT;
+        if (state == this.state) return;
+
+        View view = stateViews[state];
+        if (view == null) {
+            // 第一次显示, 从 ViewStub inflate
+            view = stubs[state].inflate();
+            stubs[state] = null;
+            stateViews[state] = view;
+        }
+        View old = stateViews[this.state];
+        if (old != null) old.setVisibility(GONE);
+        view.setVisibility(VISIBLE);
+        this.state = state;
+    }
+
+    private static void checkState(int state) {
+        if (state < STATE_CONTENT || state >= STATE_COUNT) throw new IllegalArgumentException("Unknown state: " + state);
+    }
+
+    private View getActiveView() {
+        View view = stateViews[state];
+        return view == null || view.getVisibility() == GONE ? null : view;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        int height = getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec);
+        setMeasuredDimension(width, height);
+        // 只测量当前状态
+        View view = getActiveView();
+        if (view != null) {
+            view.measure(MeasureSpec.makeMeasureSpec(Math.max(0, width - getPaddingLeft() - getPaddingRight()), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(Math.max(0, height - getPaddingTop() - getPaddingBottom()), MeasureSpec.EXACTLY));
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        View view = getActiveView();
+        if (view != null) {
+            view.layout(getPaddingLeft(), getPaddingTop(), getPaddingLeft() + view.getMeasuredWidth(),
+                    getPaddingTop() + view.getMeasuredHeight());
+        }
+    }
+
+    /** 下拉刷新根据当前状态判断能否继续向上滚动 */
+    @Override
+    public boolean canScrollVertically(int direction) {
+        View view = getActiveView();
+        return view != null && view.canScrollVertically(direction);
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+}
@@ -18,8 +18,15 @@ package com.shihang.pulltorefresh.view;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
 import android.os.Handler;
+import android.os.Looper;
 import android.support.annotation.ColorInt;
 import android.support.annotation.ColorRes;
 import android.support.annotation.Nullable;
@@ -39,7 +46,9 @@ import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.animation.Animation;
 import android.view.animation.Animation.AnimationListener;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
 import android.view.animation.Transformation;
 import android.widget.AbsListView;
 import com.yanzhenjie.recyclerview.swipe.R;
@@ -151,15 +160,20 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
 
     MaterialProgressDrawable mProgress;
 
-    private Animation mScaleAnimation;
+    // All spinner motion runs on this one preallocated animation, see SpinnerAnimation.
+    private final SpinnerAnimation mSpinnerAnimation = new SpinnerAnimation();
 
-    private Animation mScaleDownAnimation;
+    private final Interpolator mAccelerateDecelerateInterpolator = new AccelerateDecelerateInterpolator();
 
-    private Animation mAlphaStartAnimation;
+    // Whether the refresh result is showing and the spinner is waiting to be dismissed.
+    private boolean mResultShowing;
 
-    private Animation mAlphaMaxAnimation;
-
-    private Animation mScaleDownToStartAnimation;
+    // The result drawables are prepared once and reused for every refresh, see prepareResultDrawables().
+    private Drawable mSuccessDrawable;
+    private Drawable mFailureDrawable;
+    private RefreshResultRenderer mResultRenderer;
+    private int mResultGeneration;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
 
     boolean mNotify;
 
@@ -198,6 +212,34 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
         }
     };
 
+    private final AnimationListener mReturnToStartListener = new AnimationListener() {
+        @Override
+        public void onAnimationStart(Animation animation) {
+        }
+
+        @Override
+        public void onAnimationEnd(Animation animation) {
+            if (!mScale) {
+                startScaleDownAnimation(null);
+            }
+        }
+
+        @Override
+        public void onAnimationRepeat(Animation animation) {
+        }
+    };
+
+    private final Runnable mDismissResultRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mResultShowing = false;
+            //setRefreshing是先更新状态在启动消失动画
+            //setRefreshing(false, false /* notify */);
+            //启动消失动画，消失动画执行完毕之后才去更新刷新状态(refreshing)
+            startScaleDownAnimation(mRefreshFinishListener);
+        }
+    };
+
     private AnimationListener mRefreshFinishListener = new AnimationListener() {
         @Override
         public void onAnimationStart(Animation animation) {
@@ -241,6 +283,12 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
+        if (mResultShowing) {
+            // The dismiss animation can't run any more, finish the refresh now.
+            removeCallbacks(mDismissResultRunnable);
+            mResultShowing = false;
+            setRefreshing(false, false /* notify */);
+        }
         reset();
     }
 
@@ -399,11 +447,69 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
 
     private void createProgressView() {
         mCircleView = new CircleImageView(getContext(), CIRCLE_BG_LIGHT);
-        mProgress = new MaterialProgressDrawable(getContext(), this);
+        mProgress = new MaterialProgressDrawable(getContext());
         mProgress.setBackgroundColor(CIRCLE_BG_LIGHT);
         mCircleView.setImageDrawable(mProgress);
         mCircleView.setVisibility(View.GONE);
         addView(mCircleView);
+        prepareResultDrawables();
+    }
+
+    /**
+     * Set the renderer of the drawables shown when a refresh finishes, null restores the default icons.
+     */
+    public void setResultRenderer(@Nullable RefreshResultRenderer renderer) {
+        mResultRenderer = renderer;
+        prepareResultDrawables();
+    }
+
+    /**
+     * Create the result drawables once. The default icons are decoded in the background, so the frame
+     * which finishes the refresh does not decode them.
+     */
+    private void prepareResultDrawables() {
+        final int generation = ++mResultGeneration;
+        if (mResultRenderer != null) {
+            mSuccessDrawable = mResultRenderer.onCreateResultDrawable(getContext(), true);
+            mFailureDrawable = mResultRenderer.onCreateResultDrawable(getContext(), false);
+            return;
+        }
+        mSuccessDrawable = null;
+        mFailureDrawable = null;
+        final Resources resources = getResources();
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap success = BitmapFactory.decodeResource(resources, R.mipmap.gou);
+                final Bitmap failure = BitmapFactory.decodeResource(resources, R.mipmap.cha);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mResultGeneration) return;
+                        if (mSuccessDrawable == null) {
+                            mSuccessDrawable = new BitmapDrawable(resources, success);
+                        }
+                        if (mFailureDrawable == null) {
+                            mFailureDrawable = new BitmapDrawable(resources, failure);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private Drawable getResultDrawable(boolean result) {
+        if (result) {
+            if (mSuccessDrawable == null) {
+                // The background decode has not finished yet.
+                mSuccessDrawable = ContextCompat.getDrawable(getContext(), R.mipmap.gou);
+            }
+            return mSuccessDrawable;
+        }
+        if (mFailureDrawable == null) {
+            mFailureDrawable = ContextCompat.getDrawable(getContext(), R.mipmap.cha);
+        }
+        return mFailureDrawable;
     }
 
     /**
@@ -439,16 +545,10 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
     }
 
     public void setRefreshResult(boolean result) {
-        mCircleView.setImageResource(result ? R.mipmap.gou : R.mipmap.cha);
-        new Handler().postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                //setRefreshing是先更新状态在启动消失动画
-                //setRefreshing(false, false /* notify */);
-                //启动消失动画，消失动画执行完毕之后才去更新刷新状态(refreshing)
-                startScaleDownAnimation(mRefreshFinishListener);
-            }
-        }, 500);
+        mCircleView.setImageDrawable(getResultDrawable(result));
+        removeCallbacks(mDismissResultRunnable);
+        mResultShowing = true;
+        postDelayed(mDismissResultRunnable, 500);
     }
 
 
@@ -461,18 +561,26 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
             // Don't adjust the alpha during appearance otherwise.
             mProgress.setAlpha(MAX_ALPHA);
         }
-        mScaleAnimation = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                setAnimationProgress(interpolatedTime);
-            }
-        };
-        mScaleAnimation.setDuration(mMediumAnimationDuration);
+        startSpinnerAnimation(SpinnerAnimation.SCALE_UP, mMediumAnimationDuration,
+                mAccelerateDecelerateInterpolator, listener);
+    }
+
+    /**
+     * Restart {@link #mSpinnerAnimation} in the given mode, nothing is allocated.
+     *
+     * @param listener null keeps the current listener.
+     */
+    private void startSpinnerAnimation(int mode, long duration, Interpolator interpolator,
+                                       AnimationListener listener) {
+        mSpinnerAnimation.mMode = mode;
+        mSpinnerAnimation.reset();
+        mSpinnerAnimation.setDuration(duration);
+        mSpinnerAnimation.setInterpolator(interpolator);
         if (listener != null) {
             mCircleView.setAnimationListener(listener);
         }
         mCircleView.clearAnimation();
-        mCircleView.startAnimation(mScaleAnimation);
+        mCircleView.startAnimation(mSpinnerAnimation);
     }
 
     /**
@@ -499,40 +607,26 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
     }
 
     void startScaleDownAnimation(AnimationListener listener) {
-        mScaleDownAnimation = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                setAnimationProgress(1 - interpolatedTime);
-            }
-        };
-        mScaleDownAnimation.setDuration(SCALE_DOWN_DURATION);
+        // Unlike the other animations, a null listener clears the previous one here.
         mCircleView.setAnimationListener(listener);
-        mCircleView.clearAnimation();
-        mCircleView.startAnimation(mScaleDownAnimation);
+        startSpinnerAnimation(SpinnerAnimation.SCALE_DOWN, SCALE_DOWN_DURATION,
+                mAccelerateDecelerateInterpolator, null);
     }
 
     private void startProgressAlphaStartAnimation() {
-        mAlphaStartAnimation = startAlphaAnimation(mProgress.getAlpha(), STARTING_PROGRESS_ALPHA);
+        startAlphaAnimation(SpinnerAnimation.ALPHA_START, mProgress.getAlpha(), STARTING_PROGRESS_ALPHA);
     }
 
     private void startProgressAlphaMaxAnimation() {
-        mAlphaMaxAnimation = startAlphaAnimation(mProgress.getAlpha(), MAX_ALPHA);
+        startAlphaAnimation(SpinnerAnimation.ALPHA_MAX, mProgress.getAlpha(), MAX_ALPHA);
     }
 
-    private Animation startAlphaAnimation(final int startingAlpha, final int endingAlpha) {
-        Animation alpha = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                mProgress.setAlpha(
-                        (int) (startingAlpha + ((endingAlpha - startingAlpha) * interpolatedTime)));
-            }
-        };
-        alpha.setDuration(ALPHA_ANIMATION_DURATION);
+    private void startAlphaAnimation(int mode, int startingAlpha, int endingAlpha) {
+        mSpinnerAnimation.mStartingAlpha = startingAlpha;
+        mSpinnerAnimation.mEndingAlpha = endingAlpha;
         // Clear out the previous animation listeners.
         mCircleView.setAnimationListener(null);
-        mCircleView.clearAnimation();
-        mCircleView.startAnimation(alpha);
-        return alpha;
+        startSpinnerAnimation(mode, ALPHA_ANIMATION_DURATION, mAccelerateDecelerateInterpolator, null);
     }
 
     /**
@@ -924,8 +1018,9 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
         return mNestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
     }
 
-    private boolean isAnimationRunning(Animation animation) {
-        return animation != null && animation.hasStarted() && !animation.hasEnded();
+    private boolean isAnimationRunning(int mode) {
+        return mSpinnerAnimation.mMode == mode && mCircleView.getAnimation() == mSpinnerAnimation
+                && mSpinnerAnimation.hasStarted() && !mSpinnerAnimation.hasEnded();
     }
 
     @SuppressLint("NewApi")
@@ -959,12 +1054,12 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
         }
         if (overscrollTop < mTotalDragDistance) {
             if (mProgress.getAlpha() > STARTING_PROGRESS_ALPHA
-                    && !isAnimationRunning(mAlphaStartAnimation)) {
+                    && !isAnimationRunning(SpinnerAnimation.ALPHA_START)) {
                 // Animate the alpha
                 startProgressAlphaStartAnimation();
             }
         } else {
-            if (mProgress.getAlpha() < MAX_ALPHA && !isAnimationRunning(mAlphaMaxAnimation)) {
+            if (mProgress.getAlpha() < MAX_ALPHA && !isAnimationRunning(SpinnerAnimation.ALPHA_MAX)) {
                 // Animate the alpha
                 startProgressAlphaMaxAnimation();
             }
@@ -985,28 +1080,7 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
             // cancel refresh
             mRefreshing = false;
             mProgress.setStartEndTrim(0f, 0f);
-            AnimationListener listener = null;
-            if (!mScale) {
-                listener = new AnimationListener() {
-
-                    @Override
-                    public void onAnimationStart(Animation animation) {
-                    }
-
-                    @Override
-                    public void onAnimationEnd(Animation animation) {
-                        if (!mScale) {
-                            startScaleDownAnimation(null);
-                        }
-                    }
-
-                    @Override
-                    public void onAnimationRepeat(Animation animation) {
-                    }
-
-                };
-            }
-            animateOffsetToStartPosition(mCurrentTargetOffsetTop, listener);
+            animateOffsetToStartPosition(mCurrentTargetOffsetTop, mScale ? null : mReturnToStartListener);
             mProgress.showArrow(false);
         }
     }
@@ -1102,14 +1176,8 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
 
     private void animateOffsetToCorrectPosition(int from, AnimationListener listener) {
         mFrom = from;
-        mAnimateToCorrectPosition.reset();
-        mAnimateToCorrectPosition.setDuration(ANIMATE_TO_TRIGGER_DURATION);
-        mAnimateToCorrectPosition.setInterpolator(mDecelerateInterpolator);
-        if (listener != null) {
-            mCircleView.setAnimationListener(listener);
-        }
-        mCircleView.clearAnimation();
-        mCircleView.startAnimation(mAnimateToCorrectPosition);
+        startSpinnerAnimation(SpinnerAnimation.TO_CORRECT_POSITION, ANIMATE_TO_TRIGGER_DURATION,
+                mDecelerateInterpolator, listener);
     }
 
     private void animateOffsetToStartPosition(int from, AnimationListener listener) {
@@ -1118,33 +1186,24 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
             startScaleDownReturnToStartAnimation(from, listener);
         } else {
             mFrom = from;
-            mAnimateToStartPosition.reset();
-            mAnimateToStartPosition.setDuration(ANIMATE_TO_START_DURATION);
-            mAnimateToStartPosition.setInterpolator(mDecelerateInterpolator);
-            if (listener != null) {
-                mCircleView.setAnimationListener(listener);
-            }
-            mCircleView.clearAnimation();
-            mCircleView.startAnimation(mAnimateToStartPosition);
+            startSpinnerAnimation(SpinnerAnimation.TO_START_POSITION, ANIMATE_TO_START_DURATION,
+                    mDecelerateInterpolator, listener);
         }
     }
 
-    private final Animation mAnimateToCorrectPosition = new Animation() {
-        @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
-            int targetTop = 0;
-            int endTarget = 0;
-            if (!mUsingCustomStart) {
-                endTarget = mSpinnerOffsetEnd - Math.abs(mOriginalOffsetTop);
-            } else {
-                endTarget = mSpinnerOffsetEnd;
-            }
-            targetTop = (mFrom + (int) ((endTarget - mFrom) * interpolatedTime));
-            int offset = targetTop - mCircleView.getTop();
-            setTargetOffsetTopAndBottom(offset);
-            mProgress.setArrowScale(1 - interpolatedTime);
+    void moveToCorrectPosition(float interpolatedTime) {
+        int targetTop = 0;
+        int endTarget = 0;
+        if (!mUsingCustomStart) {
+            endTarget = mSpinnerOffsetEnd - Math.abs(mOriginalOffsetTop);
+        } else {
+            endTarget = mSpinnerOffsetEnd;
         }
-    };
+        targetTop = (mFrom + (int) ((endTarget - mFrom) * interpolatedTime));
+        int offset = targetTop - mCircleView.getTop();
+        setTargetOffsetTopAndBottom(offset);
+        mProgress.setArrowScale(1 - interpolatedTime);
+    }
 
     void moveToStart(float interpolatedTime) {
         int targetTop = 0;
@@ -1153,32 +1212,60 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
         setTargetOffsetTopAndBottom(offset);
     }
 
-    private final Animation mAnimateToStartPosition = new Animation() {
-        @Override
-        public void applyTransformation(float interpolatedTime, Transformation t) {
-            moveToStart(interpolatedTime);
-        }
-    };
-
     @SuppressLint("NewApi")
     private void startScaleDownReturnToStartAnimation(int from,
                                                       AnimationListener listener) {
         mFrom = from;
         mStartingScale = mCircleView.getScaleX();
-        mScaleDownToStartAnimation = new Animation() {
-            @Override
-            public void applyTransformation(float interpolatedTime, Transformation t) {
-                float targetScale = (mStartingScale + (-mStartingScale * interpolatedTime));
-                setAnimationProgress(targetScale);
-                moveToStart(interpolatedTime);
+        startSpinnerAnimation(SpinnerAnimation.SCALE_DOWN_TO_START, SCALE_DOWN_DURATION,
+                mAccelerateDecelerateInterpolator, listener);
+    }
+
+    /**
+     * The one animation behind every spinner movement. It is restarted in another mode instead of
+     * allocating a new Animation, and is stepped by the view system once per frame.
+     */
+    private class SpinnerAnimation extends Animation {
+
+        static final int SCALE_UP = 0;
+        static final int SCALE_DOWN = 1;
+        static final int ALPHA_START = 2;
+        static final int ALPHA_MAX = 3;
+        static final int TO_CORRECT_POSITION = 4;
+        static final int TO_START_POSITION = 5;
+        static final int SCALE_DOWN_TO_START = 6;
+
+        int mMode;
+        int mStartingAlpha;
+        int mEndingAlpha;
+
+        @Override
+        public void applyTransformation(float interpolatedTime, Transformation t) {
+            switch (mMode) {
+                case SCALE_UP:
+                    setAnimationProgress(interpolatedTime);
+                    break;
+                case SCALE_DOWN:
+                    setAnimationProgress(1 - interpolatedTime);
+                    break;
+                case ALPHA_START:
+                case ALPHA_MAX:
+                    mProgress.setAlpha(
+                            (int) (mStartingAlpha + ((mEndingAlpha - mStartingAlpha) * interpolatedTime)));
+                    break;
+                case TO_CORRECT_POSITION:
+                    moveToCorrectPosition(interpolatedTime);
+                    break;
+                case TO_START_POSITION:
+                    moveToStart(interpolatedTime);
+                    break;
+                case SCALE_DOWN_TO_START:
+                    float targetScale = (mStartingScale + (-mStartingScale * interpolatedTime));
+                    setAnimationProgress(targetScale);
+                    moveToStart(interpolatedTime);
+                    break;
             }
-        };
-        mScaleDownToStartAnimation.setDuration(SCALE_DOWN_DURATION);
-        if (listener != null) {
-            mCircleView.setAnimationListener(listener);
         }
-        mCircleView.clearAnimation();
-        mCircleView.startAnimation(mScaleDownToStartAnimation);
     }
 
     void setTargetOffsetTopAndBottom(int offset) {
@@ -1209,6 +1296,20 @@ public class SwipeRefreshLayout extends ViewGroup implements NestedScrollingPare
         void onRefresh();
     }
 
+    /**
+     * Creates the drawables shown by {@link SwipeRefreshLayout#setRefreshResult(boolean)}.
+     */
+    public interface RefreshResultRenderer {
+        /**
+         * Called once for each result on the main thread, the drawable is reused for every refresh.
+         *
+         * @param context context of the SwipeRefreshLayout.
+         * @param result  true for the drawable of a successful refresh, false for a failed one.
+         * @return the drawable shown in the circle.
+         */
+        Drawable onCreateResultDrawable(Context context, boolean result);
+    }
+
     /**
      * Classes that wish to override {@link SwipeRefreshLayout#canChildScrollUp()} method
      * behavior should implement this interface.
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+
+/**
+ * <p>Finds how close the list is to its end, used by {@link SwipeMenuRecyclerView} to load more.</p>
+ * <p>{@link Linear} works with {@link LinearLayoutManager} and {@link android.support.v7.widget.GridLayoutManager},
+ * {@link StaggeredGrid} works with {@link StaggeredGridLayoutManager}, set your own one with
+ * {@link SwipeMenuRecyclerView#setEndReachDetector(EndReachDetector)} for other layout managers.</p>
+ */
+public interface EndReachDetector {
+
+    /**
+     * Find the last visible adapter position, it is called once a frame while scrolling, do not allocate here.
+     *
+     * @param layoutManager the layout manager of the list.
+     * @return the last visible position, or {@link RecyclerView#NO_POSITION}.
+     */
+    int findLastVisiblePosition(RecyclerView.LayoutManager layoutManager);
+
+    class Linear implements EndReachDetector {
+
+        @Override
+        public int findLastVisiblePosition(RecyclerView.LayoutManager layoutManager) {
+            if (!(layoutManager instanceof LinearLayoutManager)) return RecyclerView.NO_POSITION;
+            return ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        }
+    }
+
+    /**
+     * Takes the maximum of the last visible positions of all spans, the buffer is reused.
+     */
+    class StaggeredGrid implements EndReachDetector {
+
+        private int[] mPositions;
+
+        @Override
+        public int findLastVisiblePosition(RecyclerView.LayoutManager layoutManager) {
+            if (!(layoutManager instanceof StaggeredGridLayoutManager)) return RecyclerView.NO_POSITION;
+            StaggeredGridLayoutManager staggeredGridLayoutManager = (StaggeredGridLayoutManager) layoutManager;
+            int spanCount = staggeredGridLayoutManager.getSpanCount();
+            if (mPositions == null || mPositions.length != spanCount) mPositions = new int[spanCount];
+
+            staggeredGridLayoutManager.findLastVisibleItemPositions(mPositions);
+            int lastVisiblePosition = RecyclerView.NO_POSITION;
+            for (int position : mPositions) {
+                if (position > lastVisiblePosition) lastVisiblePosition = position;
+            }
+            return lastVisiblePosition;
+        }
+    }
+}
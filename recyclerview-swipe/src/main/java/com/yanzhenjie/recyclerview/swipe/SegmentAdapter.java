@@ -0,0 +1,383 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe;
+
+import android.support.v4.util.SparseArrayCompat;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Adapter composed of several adapters, such as a banner, a feed and recommendations, shown one after another.</p>
+ * <p>Each adapter keeps its own view types and stable ids, they are mapped to view types and ids that do not collide
+ * with the other adapters, so the holders of an adapter are only recycled for the same adapter. Each adapter can be
+ * loaded and notified on its own.</p>
+ * <p>The position of {@code ViewHolder#getAdapterPosition()} is the position in this adapter, use
+ * {@link #getLocalPosition(int)} to get the position in the adapter of the item.</p>
+ * <p>With stable ids, the ids of the adapters must be in {@code [0, 2^56)}, the upper 8 bits hold the adapter.</p>
+ * <p>At most {@value #MAX_ADAPTERS} adapters can be added at the same time, the id of a removed adapter is reused.</p>
+ * <p>This adapter is standalone, the headers and footers of {@link SwipeMenuRecyclerView} are not segments of it and
+ * keep their own view types. Set it as the adapter of the list to compose segments with swipe menus.</p>
+ */
+public class SegmentAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    /**
+     * The bits of a stable id kept for the adapter, the remaining bits are the id given by the adapter.
+     */
+    private static final int SEGMENT_ID_SHIFT = 56;
+    private static final long LOCAL_ID_MASK = (1L << SEGMENT_ID_SHIFT) - 1;
+    private static final int MAX_SEGMENT_ID = (1 << (Long.SIZE - SEGMENT_ID_SHIFT - 1)) - 1;
+
+    /**
+     * The most adapters that can be added at the same time, one for each segment id in {@code [0, 127]}.
+     */
+    public static final int MAX_ADAPTERS = MAX_SEGMENT_ID + 1;
+
+    private final List<Segment> mSegments = new ArrayList<>();
+    private final SparseArrayCompat<Segment> mTypeSegments = new SparseArrayCompat<>();
+    private final SparseIntArray mLocalTypes = new SparseIntArray();
+
+    private int mNextViewType;
+    private int mNextSegmentId;
+
+    private int[] mStarts = new int[0];
+    private int mItemCount;
+    private boolean mStartsValid;
+
+    private RecyclerView mRecyclerView;
+
+    public SegmentAdapter() {
+    }
+
+    public SegmentAdapter(RecyclerView.Adapter... adapters) {
+        for (RecyclerView.Adapter adapter : adapters) {
+            addAdapter(adapter);
+        }
+    }
+
+    /**
+     * Add the adapter after the others.
+     *
+     * @throws IllegalStateException if {@link #MAX_ADAPTERS} adapters have already been added.
+     */
+    public void addAdapter(RecyclerView.Adapter adapter) {
+        addAdapter(mSegments.size(), adapter);
+    }
+
+    /**
+     * Add the adapter at the index of the adapters.
+     *
+     * @throws IllegalStateException if {@link #MAX_ADAPTERS} adapters have already been added.
+     */
+    public void addAdapter(int index, RecyclerView.Adapter adapter) {
+        if (indexOfAdapter(adapter) >= 0)
+            throw new IllegalArgumentException("The adapter has already been added.");
+        if (hasStableIds() && !adapter.hasStableIds())
+            throw new IllegalArgumentException("The adapter has no stable ids, but the SegmentAdapter has.");
+        if (mSegments.size() >= MAX_ADAPTERS)
+            throw new IllegalStateException("At most " + MAX_ADAPTERS + " adapters can be added.");
+
+        Segment segment = new Segment(adapter, obtainSegmentId());
+        mSegments.add(index, segment);
+        adapter.registerAdapterDataObserver(segment);
+        if (mRecyclerView != null) adapter.onAttachedToRecyclerView(mRecyclerView);
+
+        mStartsValid = false;
+        int count = adapter.getItemCount();
+        if (count > 0) notifyItemRangeInserted(getStart(segment), count);
+    }
+
+    /**
+     * Remove the adapter.
+     */
+    public void removeAdapter(RecyclerView.Adapter adapter) {
+        int index = indexOfAdapter(adapter);
+        if (index < 0) return;
+
+        Segment segment = mSegments.get(index);
+        int start = getStart(segment);
+        int count = segment.count;
+
+        mSegments.remove(index);
+        adapter.unregisterAdapterDataObserver(segment);
+        if (mRecyclerView != null) adapter.onDetachedFromRecyclerView(mRecyclerView);
+        for (int i = mTypeSegments.size() - 1; i >= 0; i--) {
+            if (mTypeSegments.valueAt(i) == segment) {
+                mLocalTypes.delete(mTypeSegments.keyAt(i));
+                mTypeSegments.removeAt(i);
+            }
+        }
+
+        mStartsValid = false;
+        if (count > 0) notifyItemRangeRemoved(start, count);
+    }
+
+    public List<RecyclerView.Adapter> getAdapters() {
+        List<RecyclerView.Adapter> adapters = new ArrayList<>(mSegments.size());
+        for (Segment segment : mSegments) {
+            adapters.add(segment.adapter);
+        }
+        return Collections.unmodifiableList(adapters);
+    }
+
+    /**
+     * Get the adapter of the item at the position.
+     */
+    public RecyclerView.Adapter getAdapter(int position) {
+        return findSegment(position).adapter;
+    }
+
+    /**
+     * Get the position of the item in its adapter.
+     */
+    public int getLocalPosition(int position) {
+        return position - findSegment(position).start;
+    }
+
+    /**
+     * Get the position of the first item of the adapter in this adapter.
+     */
+    public int getAdapterStart(RecyclerView.Adapter adapter) {
+        int index = indexOfAdapter(adapter);
+        if (index < 0) return RecyclerView.NO_POSITION;
+        return getStart(mSegments.get(index));
+    }
+
+    @Override
+    public void setHasStableIds(boolean hasStableIds) {
+        if (hasStableIds) {
+            for (Segment segment : mSegments) {
+                if (!segment.adapter.hasStableIds())
+                    throw new IllegalStateException("All adapters must have stable ids.");
+            }
+        }
+        super.setHasStableIds(hasStableIds);
+    }
+
+    @Override
+    public int getItemCount() {
+        ensureStarts();
+        return mItemCount;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        Segment segment = findSegment(position);
+        int localType = segment.adapter.getItemViewType(position - segment.start);
+        int viewType = segment.viewTypes.get(localType, -1);
+        if (viewType == -1) {
+            viewType = mNextViewType++;
+            segment.viewTypes.put(localType, viewType);
+            mTypeSegments.put(viewType, segment);
+            mLocalTypes.put(viewType, localType);
+        }
+        return viewType;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        Segment segment = findSegment(position);
+        long localId = segment.adapter.getItemId(position - segment.start);
+        if (localId == RecyclerView.NO_ID) return RecyclerView.NO_ID;
+        if ((localId & ~LOCAL_ID_MASK) != 0)
+            throw new IllegalStateException("The id " + localId + " of position " + (position - segment.start)
+                    + " in the adapter is out of [0, 2^56), it can not be combined with the adapter.");
+        return ((long) segment.id << SEGMENT_ID_SHIFT) | localId;
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        Segment segment = mTypeSegments.get(viewType);
+        if (segment == null)
+            throw new IllegalStateException("The adapter of view type " + viewType + " has been removed.");
+        return segment.adapter.onCreateViewHolder(parent, mLocalTypes.get(viewType));
+    }
+
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        onBindViewHolder(holder, position, Collections.emptyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+        Segment segment = findSegment(position);
+        segment.adapter.onBindViewHolder(holder, position - segment.start, payloads);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        Segment segment = mTypeSegments.get(holder.getItemViewType());
+        if (segment != null) segment.adapter.onViewRecycled(holder);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean onFailedToRecycleView(RecyclerView.ViewHolder holder) {
+        Segment segment = mTypeSegments.get(holder.getItemViewType());
+        return segment != null && segment.adapter.onFailedToRecycleView(holder);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
+        Segment segment = mTypeSegments.get(holder.getItemViewType());
+        if (segment != null) segment.adapter.onViewAttachedToWindow(holder);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
+        Segment segment = mTypeSegments.get(holder.getItemViewType());
+        if (segment != null) segment.adapter.onViewDetachedFromWindow(holder);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        for (Segment segment : mSegments) {
+            segment.adapter.onAttachedToRecyclerView(recyclerView);
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = null;
+        for (Segment segment : mSegments) {
+            segment.adapter.onDetachedFromRecyclerView(recyclerView);
+        }
+    }
+
+    /**
+     * New ids are used first, so the ids of a removed adapter are not shared while its items may still be animating
+     * out. Once they run out, the smallest id not in use is reused.
+     */
+    private int obtainSegmentId() {
+        if (mNextSegmentId <= MAX_SEGMENT_ID) return mNextSegmentId++;
+        for (int id = 0; id <= MAX_SEGMENT_ID; id++) {
+            boolean used = false;
+            for (int i = 0; i < mSegments.size(); i++) {
+                if (mSegments.get(i).id == id) {
+                    used = true;
+                    break;
+                }
+            }
+            if (!used) return id;
+        }
+        throw new IllegalStateException("Too many adapters have been added.");
+    }
+
+    private int indexOfAdapter(RecyclerView.Adapter adapter) {
+        for (int i = 0; i < mSegments.size(); i++) {
+            if (mSegments.get(i).adapter == adapter) return i;
+        }
+        return -1;
+    }
+
+    private int getStart(Segment segment) {
+        ensureStarts();
+        return segment.start;
+    }
+
+    /**
+     * Find the segment of the position by binary search over the start positions, the empty segments share the start
+     * with the next one, so the last segment starting at or before the position holds it.
+     */
+    private Segment findSegment(int position) {
+        ensureStarts();
+        if (position < 0 || position >= mItemCount)
+            throw new IndexOutOfBoundsException("Position " + position + ", item count " + mItemCount + ".");
+
+        int[] starts = mStarts;
+        int low = 0;
+        int high = mSegments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= position) low = mid;
+            else high = mid - 1;
+        }
+        return mSegments.get(low);
+    }
+
+    private void ensureStarts() {
+        if (mStartsValid) return;
+        int size = mSegments.size();
+        if (mStarts.length < size) mStarts = new int[Math.max(size, mStarts.length * 2)];
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            Segment segment = mSegments.get(i);
+            segment.start = start;
+            segment.count = segment.adapter.getItemCount();
+            mStarts[i] = start;
+            start += segment.count;
+        }
+        mItemCount = start;
+        mStartsValid = true;
+    }
+
+    private class Segment extends RecyclerView.AdapterDataObserver {
+
+        final RecyclerView.Adapter adapter;
+        final int id;
+        final SparseIntArray viewTypes = new SparseIntArray();
+        int start;
+        int count;
+
+        Segment(RecyclerView.Adapter adapter, int id) {
+            this.adapter = adapter;
+            this.id = id;
+        }
+
+        @Override
+        public void onChanged() {
+            mStartsValid = false;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            notifyItemRangeChanged(getStart(this) + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            notifyItemRangeChanged(getStart(this) + positionStart, itemCount, payload);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mStartsValid = false;
+            notifyItemRangeInserted(getStart(this) + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mStartsValid = false;
+            notifyItemRangeRemoved(getStart(this) + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            int start = getStart(this);
+            notifyItemMoved(start + fromPosition, start + toPosition);
+        }
+    }
+}
@@ -20,10 +20,13 @@ import android.support.v4.util.SparseArrayCompat;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.util.Log;
+import android.util.SparseBooleanArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import com.yanzhenjie.recyclerview.swipe.core.ItemPositions;
+
 import java.lang.reflect.Field;
 import java.util.List;
 
@@ -33,8 +36,15 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
     private static final int BASE_ITEM_TYPE_HEADER = 100000;
     private static final int BASE_ITEM_TYPE_FOOTER = 200000;
 
+    /**
+     * {@link RecyclerView.ViewHolder#itemView} is final, it is resolved once and reused for every created holder.
+     */
+    private static final Field ITEM_VIEW_FIELD = findItemViewField();
+
     private SparseArrayCompat<View> mHeaderViews = new SparseArrayCompat<>();
     private SparseArrayCompat<View> mFootViews = new SparseArrayCompat<>();
+    private int mNextHeaderType = BASE_ITEM_TYPE_HEADER;
+    private int mNextFooterType = BASE_ITEM_TYPE_FOOTER;
 
     private RecyclerView.Adapter mAdapter;
     private LayoutInflater mInflater;
@@ -42,10 +52,21 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
     private SwipeMenuCreator mSwipeMenuCreator;
     private SwipeMenuItemClickListener mSwipeMenuItemClickListener;
     private SwipeItemClickListener mSwipeItemClickListener;
+    private SwipeMenuViewPool mSwipeMenuViewPool;
+    private boolean mSwipeMenuLazy;
+    private boolean mSwipeMenuDraw;
+    private RecyclerView mRecyclerView;
+    private int mContentItemCount = -1;
+
+    private SparseArrayCompat<SwipeMenu> mLeftMenuTemplates = new SparseArrayCompat<>();
+    private SparseArrayCompat<SwipeMenu> mRightMenuTemplates = new SparseArrayCompat<>();
+    // View types whose holders were created without a SwipeMenuLayout, because their menus had no items.
+    private SparseBooleanArray mNoMenuViewTypes = new SparseBooleanArray();
 
     SwipeAdapterWrapper(Context context, RecyclerView.Adapter adapter) {
         this.mInflater = LayoutInflater.from(context);
         this.mAdapter = adapter;
+        super.setHasStableIds(adapter.hasStableIds());
     }
 
     public RecyclerView.Adapter getOriginAdapter() {
@@ -74,13 +95,48 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
         mSwipeItemClickListener = swipeItemClickListener;
     }
 
+    /**
+     * Set the pool to reuse menu views between ViewHolders.
+     *
+     * @param swipeMenuViewPool pool.
+     */
+    void setSwipeMenuViewPool(SwipeMenuViewPool swipeMenuViewPool) {
+        mSwipeMenuViewPool = swipeMenuViewPool;
+    }
+
+    /**
+     * Set whether the menu views are created on the first swipe instead of when the item is bound.
+     *
+     * @param swipeMenuLazy true is lazy, otherwise false.
+     */
+    void setSwipeMenuLazy(boolean swipeMenuLazy) {
+        mSwipeMenuLazy = swipeMenuLazy;
+    }
+
+    /**
+     * Set whether the menus are drawn by {@link SwipeMenuDrawView} instead of a view for each item.
+     *
+     * @param swipeMenuDraw true is drawn, otherwise false.
+     */
+    void setSwipeMenuDraw(boolean swipeMenuDraw) {
+        mSwipeMenuDraw = swipeMenuDraw;
+    }
+
     @Override
     public int getItemCount() {
         return getHeaderItemCount() + getContentItemCount() + getFooterItemCount();
     }
 
     private int getContentItemCount() {
-        return mAdapter.getItemCount();
+        if (mContentItemCount < 0) mContentItemCount = mAdapter.getItemCount();
+        return mContentItemCount;
+    }
+
+    /**
+     * Drop the cached item count of the original adapter, called before its changes are dispatched.
+     */
+    void invalidateContentItemCount() {
+        mContentItemCount = -1;
     }
 
     @Override
@@ -88,9 +144,9 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
         if (isHeaderView(position)) {
             return mHeaderViews.keyAt(position);
         } else if (isFooterView(position)) {
-            return mFootViews.keyAt(position - getHeaderItemCount() - getContentItemCount());
+            return mFootViews.keyAt(ItemPositions.toFooterIndex(position, getHeaderItemCount(), getContentItemCount()));
         }
-        return mAdapter.getItemViewType(position - getHeaderItemCount());
+        return mAdapter.getItemViewType(ItemPositions.toContentPosition(position, getHeaderItemCount()));
     }
 
     @Override
@@ -100,62 +156,99 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
         } else if (mFootViews.get(viewType) != null) {
             return new ViewHolder(mFootViews.get(viewType));
         }
-        final RecyclerView.ViewHolder viewHolder = mAdapter.onCreateViewHolder(parent, viewType);
+        RecyclerView.ViewHolder viewHolder = mAdapter.onCreateViewHolder(parent, viewType);
 
         if (mSwipeItemClickListener != null) {
-            viewHolder.itemView.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    mSwipeItemClickListener.onItemClick(v, viewHolder.getAdapterPosition());
-                }
-            });
+            viewHolder.itemView.setOnClickListener(mItemClickDispatcher);
         }
 
         if (mSwipeMenuCreator == null) return viewHolder;
 
-        final SwipeMenuLayout swipeMenuLayout = (SwipeMenuLayout) mInflater.inflate(R.layout.recycler_swipe_view_item, parent, false);
-        SwipeMenu swipeLeftMenu = new SwipeMenu(swipeMenuLayout, viewType);
-        SwipeMenu swipeRightMenu = new SwipeMenu(swipeMenuLayout, viewType);
-
-        mSwipeMenuCreator.onCreateMenu(swipeLeftMenu, swipeRightMenu, viewType);
+        createMenuTemplates(viewType);
+        SwipeMenu swipeLeftMenu = mLeftMenuTemplates.get(viewType);
+        SwipeMenu swipeRightMenu = mRightMenuTemplates.get(viewType);
 
         int leftMenuCount = swipeLeftMenu.getMenuItems().size();
         int rightMenuCount = swipeRightMenu.getMenuItems().size();
-        if(leftMenuCount == 0 && rightMenuCount == 0) return viewHolder;
-
-        if (leftMenuCount > 0) {
-            SwipeMenuView swipeLeftMenuView = (SwipeMenuView) swipeMenuLayout.findViewById(R.id.swipe_left);
-            // noinspection WrongConstant
-            swipeLeftMenuView.setOrientation(swipeLeftMenu.getOrientation());
-            swipeLeftMenuView.createMenu(swipeLeftMenu, swipeMenuLayout, mSwipeMenuItemClickListener, SwipeMenuRecyclerView.LEFT_DIRECTION);
-        }
-        if (rightMenuCount > 0) {
-            SwipeMenuView swipeRightMenuView = (SwipeMenuView) swipeMenuLayout.findViewById(R.id.swipe_right);
-            // noinspection WrongConstant
-            swipeRightMenuView.setOrientation(swipeRightMenu.getOrientation());
-            swipeRightMenuView.createMenu(swipeRightMenu, swipeMenuLayout, mSwipeMenuItemClickListener, SwipeMenuRecyclerView.RIGHT_DIRECTION);
+        if (leftMenuCount == 0 && rightMenuCount == 0) {
+            mNoMenuViewTypes.put(viewType, true);
+            return viewHolder;
         }
 
+        final SwipeMenuLayout swipeMenuLayout = (SwipeMenuLayout) mInflater.inflate(R.layout.recycler_swipe_view_item, parent, false);
+        swipeMenuLayout.setSwipeMenuDraw(mSwipeMenuDraw);
+        swipeMenuLayout.setSwipeMenu(viewType, swipeLeftMenu, swipeRightMenu, mSwipeMenuItemClickListener, mSwipeMenuViewPool);
+
         ViewGroup viewGroup = (ViewGroup) swipeMenuLayout.findViewById(R.id.swipe_content);
         viewGroup.addView(viewHolder.itemView);
 
+        if (ITEM_VIEW_FIELD != null) {
+            try {
+                ITEM_VIEW_FIELD.set(viewHolder, swipeMenuLayout);
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+        }
+        return viewHolder;
+    }
+
+    /**
+     * Call {@link SwipeMenuCreator} for the view type if its menus are not created yet, the menus are frozen and
+     * shared by all items of the view type.
+     */
+    private void createMenuTemplates(int viewType) {
+        if (mLeftMenuTemplates.get(viewType) != null) return;
+
+        Context context = mInflater.getContext();
+        SwipeMenu swipeLeftMenu = new SwipeMenu(context, viewType);
+        SwipeMenu swipeRightMenu = new SwipeMenu(context, viewType);
+        mSwipeMenuCreator.onCreateMenu(swipeLeftMenu, swipeRightMenu, viewType);
+        swipeLeftMenu.freeze();
+        swipeRightMenu.freeze();
+
+        mLeftMenuTemplates.put(viewType, swipeLeftMenu);
+        mRightMenuTemplates.put(viewType, swipeRightMenu);
+    }
+
+    /**
+     * Discard the created menus, {@link SwipeMenuCreator} is called again for each view type, the items already
+     * having a menu take the new menus when they are bound.
+     *
+     * @return true if some holders were created without a menu, they can not take a menu and must be created again.
+     */
+    boolean invalidateSwipeMenus() {
+        mLeftMenuTemplates.clear();
+        mRightMenuTemplates.clear();
+        if (mSwipeMenuViewPool != null) mSwipeMenuViewPool.clear();
+        boolean recreate = mNoMenuViewTypes.size() > 0;
+        mNoMenuViewTypes.clear();
+        return recreate;
+    }
+
+    private static Field findItemViewField() {
         try {
-            Field itemView = getSupperClass(viewHolder.getClass()).getDeclaredField("itemView");
-            if (!itemView.isAccessible()) itemView.setAccessible(true);
-            itemView.set(viewHolder, swipeMenuLayout);
+            Field itemView = RecyclerView.ViewHolder.class.getDeclaredField("itemView");
+            itemView.setAccessible(true);
+            return itemView;
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
-        return viewHolder;
     }
 
-    private Class<?> getSupperClass(Class<?> aClass) {
-        Class<?> supperClass = aClass.getSuperclass();
-        if (supperClass != null && !supperClass.equals(Object.class)) {
-            return getSupperClass(supperClass);
+    /**
+     * One listener for all items, the position is resolved from the clicked view when the click happens.
+     */
+    private final View.OnClickListener mItemClickDispatcher = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            if (mSwipeItemClickListener == null || mRecyclerView == null) return;
+            RecyclerView.ViewHolder viewHolder = mRecyclerView.findContainingViewHolder(v);
+            if (viewHolder != null) {
+                mSwipeItemClickListener.onItemClick(v, viewHolder.getAdapterPosition());
+            }
         }
-        return aClass;
-    }
+    };
 
     @Override
     public final void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
@@ -170,28 +263,34 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
         View itemView = holder.itemView;
         if (itemView instanceof SwipeMenuLayout) {
             SwipeMenuLayout swipeMenuLayout = (SwipeMenuLayout) itemView;
-            int childCount = swipeMenuLayout.getChildCount();
-            for (int i = 0; i < childCount; i++) {
-                View childView = swipeMenuLayout.getChildAt(i);
-                if (childView instanceof SwipeMenuView) {
-                    ((SwipeMenuView) childView).bindViewHolder(holder);
-                }
-            }
+            updateSwipeMenu(swipeMenuLayout, holder.getItemViewType());
+            if (!mSwipeMenuLazy) swipeMenuLayout.attachMenus();
+            swipeMenuLayout.bindViewHolder(holder);
         }
 
-        mAdapter.onBindViewHolder(holder, position - getHeaderItemCount(), payloads);
+        mAdapter.onBindViewHolder(holder, ItemPositions.toContentPosition(position, getHeaderItemCount()), payloads);
+    }
+
+    private void updateSwipeMenu(SwipeMenuLayout swipeMenuLayout, int viewType) {
+        if (mSwipeMenuCreator == null) return;
+        createMenuTemplates(viewType);
+        SwipeMenu swipeLeftMenu = mLeftMenuTemplates.get(viewType);
+        SwipeMenu swipeRightMenu = mRightMenuTemplates.get(viewType);
+        if (!swipeMenuLayout.isSwipeMenu(swipeLeftMenu, swipeRightMenu)) {
+            swipeMenuLayout.setSwipeMenu(viewType, swipeLeftMenu, swipeRightMenu, mSwipeMenuItemClickListener,
+                    mSwipeMenuViewPool);
+        }
     }
 
     @Override
     public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
         mAdapter.onAttachedToRecyclerView(recyclerView);
     }
 
     @Override
     public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
-        int position = holder.getAdapterPosition();
-
-        if (isHeaderView(position) || isFooterView(position)) {
+        if (isHeaderOrFooter(holder)) {
             ViewGroup.LayoutParams lp = holder.itemView.getLayoutParams();
             if (lp != null && lp instanceof StaggeredGridLayoutManager.LayoutParams) {
                 StaggeredGridLayoutManager.LayoutParams p = (StaggeredGridLayoutManager.LayoutParams) lp;
@@ -202,20 +301,27 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
         }
     }
 
+    /**
+     * Headers and footers are held by {@link ViewHolder}, the holder works even if its position is gone.
+     */
+    private static boolean isHeaderOrFooter(RecyclerView.ViewHolder holder) {
+        return holder instanceof ViewHolder;
+    }
+
     public boolean isHeaderView(int position) {
-        return position >= 0 && position < getHeaderItemCount();
+        return ItemPositions.isHeader(position, getHeaderItemCount());
     }
 
     public boolean isFooterView(int position) {
-        return position >= getHeaderItemCount() + getContentItemCount();
+        return ItemPositions.isFooter(position, getHeaderItemCount(), getContentItemCount());
     }
 
     public void addHeaderView(View view) {
-        mHeaderViews.put(getHeaderItemCount() + BASE_ITEM_TYPE_HEADER, view);
+        mHeaderViews.put(obtainHeaderType(view), view);
     }
 
     public void addHeaderViewAndNotify(View view) {
-        mHeaderViews.put(getHeaderItemCount() + BASE_ITEM_TYPE_HEADER, view);
+        mHeaderViews.put(obtainHeaderType(view), view);
         notifyItemInserted(getHeaderItemCount() - 1);
     }
 
@@ -226,12 +332,12 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
     }
 
     public void addFooterView(View view) {
-        mFootViews.put(getFooterItemCount() + BASE_ITEM_TYPE_FOOTER, view);
+        mFootViews.put(obtainFooterType(view), view);
     }
 
     public void addFooterViewAndNotify(View view) {
         Log.i("Test", view.hashCode() + "--添加--" + view);
-        mFootViews.put(getFooterItemCount() + BASE_ITEM_TYPE_FOOTER, view);
+        mFootViews.put(obtainFooterType(view), view);
         notifyItemInserted(getHeaderItemCount() + getContentItemCount() + getFooterItemCount() - 1);
     }
 
@@ -242,6 +348,34 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
         notifyItemRemoved(getHeaderItemCount() + getContentItemCount() + footerIndex);
     }
 
+    /**
+     * The view types of headers only grow, so removing a header does not change the keys of the others. A view added
+     * again keeps its view type if it still goes last, then its holder can be reused.
+     */
+    private int obtainHeaderType(View view) {
+        int viewType = getReusableType(mHeaderViews, view, BASE_ITEM_TYPE_HEADER, BASE_ITEM_TYPE_FOOTER);
+        if (viewType < 0) viewType = mNextHeaderType++;
+        view.setTag(R.id.recycler_swipe_view_type, viewType);
+        return viewType;
+    }
+
+    private int obtainFooterType(View view) {
+        int viewType = getReusableType(mFootViews, view, BASE_ITEM_TYPE_FOOTER, Integer.MAX_VALUE);
+        if (viewType < 0) viewType = mNextFooterType++;
+        view.setTag(R.id.recycler_swipe_view_type, viewType);
+        return viewType;
+    }
+
+    private static int getReusableType(SparseArrayCompat<View> views, View view, int minType, int maxType) {
+        Object tag = view.getTag(R.id.recycler_swipe_view_type);
+        if (!(tag instanceof Integer)) return -1;
+        int viewType = (Integer) tag;
+        if (viewType < minType || viewType >= maxType) return -1;
+        int size = views.size();
+        if (size > 0 && views.keyAt(size - 1) >= viewType) return -1;
+        return viewType;
+    }
+
     public int getHeaderItemCount() {
         return mHeaderViews.size();
     }
@@ -258,39 +392,45 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
 
     @Override
     public void setHasStableIds(boolean hasStableIds) {
+        super.setHasStableIds(hasStableIds);
         mAdapter.setHasStableIds(hasStableIds);
     }
 
+    /**
+     * The ids of the original adapter are kept, headers and footers get an id from their view type, which is unique
+     * for each of them and far below the ids of the items.
+     */
     @Override
     public long getItemId(int position) {
-        if (!isHeaderView(position) && !isFooterView(position)) {
-            return mAdapter.getItemId(position);
+        if (isHeaderView(position) || isFooterView(position)) {
+            if (!hasStableIds()) return RecyclerView.NO_ID;
+            return Long.MIN_VALUE + getItemViewType(position);
         }
-        return super.getItemId(position);
+        return mAdapter.getItemId(ItemPositions.toContentPosition(position, getHeaderItemCount()));
     }
 
     @Override
     public void onViewRecycled(RecyclerView.ViewHolder holder) {
-        int position = holder.getAdapterPosition();
+        if (holder.itemView instanceof SwipeMenuLayout) {
+            // The menus of a view type fit every holder of it, so the holder keeps its menu views. They go back to
+            // the pool when the holder is discarded, see SwipeRecycledViewPool.
+            ((SwipeMenuLayout) holder.itemView).closeMenusImmediately();
+        }
 
-        if (!isHeaderView(position) && !isFooterView(position))
+        if (!isHeaderOrFooter(holder))
             mAdapter.onViewRecycled(holder);
     }
 
     @Override
     public boolean onFailedToRecycleView(RecyclerView.ViewHolder holder) {
-        int position = holder.getAdapterPosition();
-
-        if (!isHeaderView(position) && !isFooterView(position))
+        if (!isHeaderOrFooter(holder))
             return mAdapter.onFailedToRecycleView(holder);
         return false;
     }
 
     @Override
     public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
-        int position = holder.getAdapterPosition();
-
-        if (!isHeaderView(position) && !isFooterView(position))
+        if (!isHeaderOrFooter(holder))
             mAdapter.onViewDetachedFromWindow(holder);
     }
 
@@ -306,6 +446,7 @@ public class SwipeAdapterWrapper extends RecyclerView.Adapter<RecyclerView.ViewH
 
     @Override
     public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        mRecyclerView = null;
         mAdapter.onDetachedFromRecyclerView(recyclerView);
     }
 }
\ No newline at end of file
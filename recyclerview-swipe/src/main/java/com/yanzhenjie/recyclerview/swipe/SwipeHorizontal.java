@@ -19,6 +19,8 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.OverScroller;
 
+import com.yanzhenjie.recyclerview.swipe.core.SwipeMath;
+
 
 abstract class SwipeHorizontal {
 
@@ -33,6 +35,9 @@ abstract class SwipeHorizontal {
     }
 
     public boolean canSwipe() {
+        if (menuView instanceof SwipeMenuContainer) {
+            return ((SwipeMenuContainer) menuView).getMenuItemCount() > 0;
+        }
         if (menuView instanceof ViewGroup) {
             return ((ViewGroup) menuView).getChildCount() > 0;
         }
@@ -40,8 +45,7 @@ abstract class SwipeHorizontal {
     }
 
     public boolean isCompleteClose(int scrollX) {
-        int i = -getMenuView().getWidth() * getDirection();
-        return scrollX == 0 && i != 0;
+        return SwipeMath.isCompleteClose(getDirection(), scrollX, getMenuView().getWidth());
     }
 
     public abstract boolean isMenuOpen(int scrollX);
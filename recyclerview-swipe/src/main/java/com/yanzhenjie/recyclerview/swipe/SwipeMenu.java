@@ -22,9 +22,15 @@ import android.widget.LinearLayout;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-
+/**
+ * <p>The menu of a view type, created once by {@link SwipeMenuCreator} and shared by all items of the view type.</p>
+ * <p>The menu is frozen after {@link SwipeMenuCreator#onCreateMenu(SwipeMenu, SwipeMenu, int)} returns, changing it
+ * later throws {@link IllegalStateException}, use {@link SwipeMenuRecyclerView#invalidateSwipeMenus()} to create the
+ * menus again.</p>
+ */
 public class SwipeMenu {
 
     @IntDef({HORIZONTAL, VERTICAL})
@@ -35,29 +41,48 @@ public class SwipeMenu {
     public static final int HORIZONTAL = LinearLayout.HORIZONTAL;
     public static final int VERTICAL = LinearLayout.VERTICAL;
 
-    private SwipeMenuLayout mSwipeMenuLayout;
+    private Context mContext;
 
     private int mViewType;
 
     private int orientation = HORIZONTAL;
 
+    private float mOpenPercent = -1;
+
+    private int mScrollerDuration = -1;
+
     private List<SwipeMenuItem> mSwipeMenuItems = new ArrayList<>(2);
 
-    public SwipeMenu(SwipeMenuLayout swipeMenuLayout, int viewType) {
-        this.mSwipeMenuLayout = swipeMenuLayout;
+    private boolean mFrozen;
+
+    public SwipeMenu(Context context, int viewType) {
+        this.mContext = context;
         this.mViewType = viewType;
     }
 
+    /**
+     * @deprecated the menu is shared by all items of the view type, use {@link #SwipeMenu(Context, int)}.
+     */
+    @Deprecated
+    public SwipeMenu(SwipeMenuLayout swipeMenuLayout, int viewType) {
+        this(swipeMenuLayout.getContext(), viewType);
+    }
+
     /**
      * Set a percentage.
      *
      * @param openPercent such as 0.5F.
      */
     public void setOpenPercent(float openPercent) {
-        if (openPercent != mSwipeMenuLayout.getOpenPercent()) {
-            openPercent = openPercent > 1 ? 1 : (openPercent < 0 ? 0 : openPercent);
-            mSwipeMenuLayout.setOpenPercent(openPercent);
-        }
+        checkMutable();
+        this.mOpenPercent = openPercent > 1 ? 1 : (openPercent < 0 ? 0 : openPercent);
+    }
+
+    /**
+     * Get the percentage, -1 if it is not set.
+     */
+    public float getOpenPercent() {
+        return mOpenPercent;
     }
 
     /**
@@ -66,7 +91,15 @@ public class SwipeMenu {
      * @param scrollerDuration such 500.
      */
     public void setScrollerDuration(int scrollerDuration) {
-        this.mSwipeMenuLayout.setScrollerDuration(scrollerDuration);
+        checkMutable();
+        this.mScrollerDuration = scrollerDuration;
+    }
+
+    /**
+     * Get the duration, -1 if it is not set.
+     */
+    public int getScrollerDuration() {
+        return mScrollerDuration;
     }
 
     /**
@@ -77,6 +110,7 @@ public class SwipeMenu {
      * @see SwipeMenu#VERTICAL
      */
     public void setOrientation(@OrientationMode int orientation) {
+        checkMutable();
         if (orientation != HORIZONTAL && orientation != VERTICAL)
             throw new IllegalArgumentException("Use SwipeMenu#HORIZONTAL or SwipeMenu#VERTICAL.");
         this.orientation = orientation;
@@ -93,10 +127,12 @@ public class SwipeMenu {
     }
 
     public void addMenuItem(SwipeMenuItem item) {
+        checkMutable();
         mSwipeMenuItems.add(item);
     }
 
     public void removeMenuItem(SwipeMenuItem item) {
+        checkMutable();
         mSwipeMenuItems.remove(item);
     }
 
@@ -109,10 +145,32 @@ public class SwipeMenu {
     }
 
     public Context getContext() {
-        return mSwipeMenuLayout.getContext();
+        return mContext;
     }
 
     public int getViewType() {
         return mViewType;
     }
+
+    public boolean isFrozen() {
+        return mFrozen;
+    }
+
+    /**
+     * Freeze the menu and its items, called after the menu is created.
+     */
+    void freeze() {
+        if (mFrozen) return;
+        mFrozen = true;
+        mSwipeMenuItems = Collections.unmodifiableList(mSwipeMenuItems);
+        for (SwipeMenuItem item : mSwipeMenuItems) {
+            item.freeze();
+        }
+    }
+
+    private void checkMutable() {
+        if (mFrozen)
+            throw new IllegalStateException("The menu is shared by the items of view type " + mViewType +
+                    ", change it in SwipeMenuCreator and call SwipeMenuRecyclerView#invalidateSwipeMenus().");
+    }
 }
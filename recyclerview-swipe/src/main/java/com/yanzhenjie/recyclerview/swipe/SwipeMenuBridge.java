@@ -31,12 +31,13 @@ public final class SwipeMenuBridge {
     @SwipeMenuRecyclerView.DirectionMode
     private final int mDirection;
     private final int mPosition;
-    private final SwipeSwitch mSwipeSwitch;
+    private SwipeSwitch mSwipeSwitch;
     private final View mViewRoot;
 
     int mAdapterPosition;
     TextView mTextView;
     ImageView mImageView;
+    SwipeMenuDrawView mDrawView;
 
     SwipeMenuBridge(@SwipeMenuRecyclerView.DirectionMode int direction, int position, SwipeSwitch swipeSwitch, View viewRoot) {
         mDirection = direction;
@@ -50,6 +51,10 @@ public final class SwipeMenuBridge {
     }
 
     public SwipeMenuBridge setBackgroundDrawable(Drawable background) {
+        if (mDrawView != null) {
+            mDrawView.setItemBackground(mPosition, background);
+            return this;
+        }
         ViewCompat.setBackground(mViewRoot, background);
         return this;
     }
@@ -59,6 +64,10 @@ public final class SwipeMenuBridge {
     }
 
     public SwipeMenuBridge setBackgroundColor(@ColorInt int color) {
+        if (mDrawView != null) {
+            mDrawView.setItemBackgroundColor(mPosition, color);
+            return this;
+        }
         mViewRoot.setBackgroundColor(color);
         return this;
     }
@@ -68,7 +77,9 @@ public final class SwipeMenuBridge {
     }
 
     public SwipeMenuBridge setImage(Drawable icon) {
-        if (mImageView != null)
+        if (mDrawView != null)
+            mDrawView.setItemImage(mPosition, icon);
+        else if (mImageView != null)
             mImageView.setImageDrawable(icon);
         return this;
     }
@@ -78,7 +89,9 @@ public final class SwipeMenuBridge {
     }
 
     public SwipeMenuBridge setText(String title) {
-        if (mTextView != null)
+        if (mDrawView != null)
+            mDrawView.setItemText(mPosition, title);
+        else if (mTextView != null)
             mTextView.setText(title);
         return this;
     }
@@ -97,6 +110,11 @@ public final class SwipeMenuBridge {
     }
 
     public void closeMenu() {
-        mSwipeSwitch.smoothCloseMenu();
+        if (mSwipeSwitch != null)
+            mSwipeSwitch.smoothCloseMenu();
+    }
+
+    void setSwipeSwitch(SwipeSwitch swipeSwitch) {
+        mSwipeSwitch = swipeSwitch;
     }
 }
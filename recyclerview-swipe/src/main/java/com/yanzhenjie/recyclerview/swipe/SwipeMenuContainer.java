@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * The view that shows the items of a {@link SwipeMenu}, implemented by {@link SwipeMenuView} and
+ * {@link SwipeMenuDrawView}.
+ */
+interface SwipeMenuContainer {
+
+    /**
+     * Create the menu items.
+     *
+     * @param swipeMenu                  menu.
+     * @param swipeSwitch                the layout the menu belongs to.
+     * @param swipeMenuItemClickListener menu item click listener.
+     * @param direction                  {@link SwipeMenuRecyclerView#LEFT_DIRECTION} or
+     *                                   {@link SwipeMenuRecyclerView#RIGHT_DIRECTION}.
+     */
+    void createMenu(SwipeMenu swipeMenu, SwipeSwitch swipeSwitch,
+                    SwipeMenuItemClickListener swipeMenuItemClickListener,
+                    @SwipeMenuRecyclerView.DirectionMode int direction);
+
+    /**
+     * Bind the ViewHolder of the item, the menu item click is reported with its adapter position.
+     */
+    void bindViewHolder(RecyclerView.ViewHolder adapterViewHolder);
+
+    /**
+     * Move the created menu to another {@link SwipeSwitch}.
+     */
+    void setSwipeSwitch(SwipeSwitch swipeSwitch);
+
+    /**
+     * The number of created menu items.
+     */
+    int getMenuItemCount();
+
+}
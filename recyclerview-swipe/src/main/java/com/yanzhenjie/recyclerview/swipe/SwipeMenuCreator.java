@@ -19,7 +19,8 @@ package com.yanzhenjie.recyclerview.swipe;
 public interface SwipeMenuCreator {
 
     /**
-     * Create menu for recyclerVie item.
+     * Create menu for recyclerVie item, it is called once for each view type, the menus are shared by all items of
+     * the view type until {@link SwipeMenuRecyclerView#invalidateSwipeMenus()} is called.
      *
      * @param swipeLeftMenu  The menu on the left.
      * @param swipeRightMenu The menu on the right.
@@ -0,0 +1,414 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Draws all items of a {@link SwipeMenu} in one view, the item backgrounds, icons and texts are drawn on the canvas
+ * and the item click is found from the touch position, instead of a view tree for each item like
+ * {@link SwipeMenuView}.</p>
+ * <p>The items are placed the way {@link SwipeMenuView} places them, the icon above the text, centered in the item.
+ * The weight of the item only takes effect when the menu is measured exactly.</p>
+ */
+public class SwipeMenuDrawView extends View implements SwipeMenuContainer {
+
+    /**
+     * The default text size of TextView, in sp.
+     */
+    private static final int DEFAULT_TEXT_SIZE = 14;
+    private static final int[] TEXT_APPEARANCE_ATTRS = {android.R.attr.textSize, android.R.attr.textColor};
+    private static final int[] DEFAULT_TEXT_COLOR_ATTRS = {android.R.attr.textColorPrimary};
+    private static final int[] STATE_NORMAL = {android.R.attr.state_enabled};
+    private static final int[] STATE_PRESSED = {android.R.attr.state_enabled, android.R.attr.state_pressed};
+
+    private final List<MenuItem> mItems = new ArrayList<>(2);
+    private final int mScaledTouchSlop;
+
+    private RecyclerView.ViewHolder mAdapterViewHolder;
+    private SwipeSwitch mSwipeSwitch;
+    private SwipeMenuItemClickListener mItemClickListener;
+    @SwipeMenu.OrientationMode
+    private int mOrientation = SwipeMenu.HORIZONTAL;
+
+    private int mPressedIndex = -1;
+    private float mDownX;
+    private float mDownY;
+
+    public SwipeMenuDrawView(Context context) {
+        this(context, null);
+    }
+
+    public SwipeMenuDrawView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SwipeMenuDrawView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mScaledTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+    }
+
+    @Override
+    public void createMenu(SwipeMenu swipeMenu, SwipeSwitch swipeSwitch,
+                           SwipeMenuItemClickListener swipeMenuItemClickListener,
+                           @SwipeMenuRecyclerView.DirectionMode int direction) {
+        for (MenuItem item : mItems) {
+            if (item.background != null) item.background.setCallback(null);
+            if (item.icon != null) item.icon.setCallback(null);
+        }
+        mItems.clear();
+        mPressedIndex = -1;
+
+        this.mSwipeSwitch = swipeSwitch;
+        this.mItemClickListener = swipeMenuItemClickListener;
+        this.mOrientation = swipeMenu.getOrientation();
+
+        ColorStateList defaultTextColor = getDefaultTextColor();
+        List<SwipeMenuItem> items = swipeMenu.getMenuItems();
+        for (int i = 0; i < items.size(); i++) {
+            SwipeMenuItem item = items.get(i);
+
+            SwipeMenuBridge menuBridge = new SwipeMenuBridge(direction, i, swipeSwitch, this);
+            menuBridge.mDrawView = this;
+
+            MenuItem menuItem = new MenuItem(menuBridge);
+            menuItem.width = item.getWidth();
+            menuItem.height = item.getHeight();
+            menuItem.weight = item.getWeight();
+            menuItem.background = SwipeMenuItem.newDrawable(item.getBackground(), getResources());
+            if (menuItem.background != null) menuItem.background.setCallback(this);
+            menuItem.icon = SwipeMenuItem.newDrawable(item.getImage(), getResources());
+            if (menuItem.icon != null) menuItem.icon.setCallback(this);
+            menuItem.text = item.getText();
+            setupTextPaint(menuItem, item, defaultTextColor);
+            mItems.add(menuItem);
+        }
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    public void bindViewHolder(RecyclerView.ViewHolder adapterViewHolder) {
+        this.mAdapterViewHolder = adapterViewHolder;
+    }
+
+    @Override
+    public void setSwipeSwitch(SwipeSwitch swipeSwitch) {
+        this.mSwipeSwitch = swipeSwitch;
+        for (MenuItem item : mItems) {
+            item.bridge.setSwipeSwitch(swipeSwitch);
+        }
+    }
+
+    @Override
+    public int getMenuItemCount() {
+        return mItems.size();
+    }
+
+    void setItemBackground(int index, Drawable background) {
+        MenuItem item = mItems.get(index);
+        if (item.background != null) item.background.setCallback(null);
+        item.background = background;
+        if (background != null) {
+            background.setCallback(this);
+            background.setState(index == mPressedIndex ? STATE_PRESSED : STATE_NORMAL);
+            background.setBounds(item.bounds);
+        }
+        invalidate();
+    }
+
+    void setItemBackgroundColor(int index, int color) {
+        MenuItem item = mItems.get(index);
+        if (item.background instanceof ColorDrawable) {
+            ((ColorDrawable) item.background.mutate()).setColor(color);
+            invalidate();
+        } else {
+            setItemBackground(index, new ColorDrawable(color));
+        }
+    }
+
+    void setItemImage(int index, Drawable icon) {
+        MenuItem item = mItems.get(index);
+        if (item.icon != null) item.icon.setCallback(null);
+        item.icon = icon;
+        if (icon != null) icon.setCallback(this);
+        requestLayout();
+        invalidate();
+    }
+
+    void setItemText(int index, String text) {
+        mItems.get(index).text = text;
+        requestLayout();
+        invalidate();
+    }
+
+    private ColorStateList getDefaultTextColor() {
+        TypedArray typedArray = getContext().obtainStyledAttributes(DEFAULT_TEXT_COLOR_ATTRS);
+        ColorStateList textColor = typedArray.getColorStateList(0);
+        typedArray.recycle();
+        return textColor;
+    }
+
+    private void setupTextPaint(MenuItem menuItem, SwipeMenuItem item, ColorStateList defaultTextColor) {
+        TextPaint paint = menuItem.paint;
+        paint.density = getResources().getDisplayMetrics().density;
+        paint.setTextAlign(Paint.Align.CENTER);
+
+        int textSize = item.getTextSize() > 0 ? item.getTextSize() : DEFAULT_TEXT_SIZE;
+        float textSizePx = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, textSize,
+                getResources().getDisplayMetrics());
+        ColorStateList textColor = item.getTitleColor() != null ? item.getTitleColor() : defaultTextColor;
+
+        // The same as SwipeMenuView, the text appearance overrides the size and color.
+        int textAppearance = item.getTextAppearance();
+        if (textAppearance != 0) {
+            TypedArray typedArray = getContext().obtainStyledAttributes(textAppearance, TEXT_APPEARANCE_ATTRS);
+            textSizePx = typedArray.getDimensionPixelSize(0, (int) textSizePx);
+            ColorStateList appearanceColor = typedArray.getColorStateList(1);
+            if (appearanceColor != null) textColor = appearanceColor;
+            typedArray.recycle();
+        }
+        paint.setTextSize(textSizePx);
+
+        Typeface typeface = item.getTextTypeface();
+        if (typeface != null) paint.setTypeface(typeface);
+
+        menuItem.textColor = textColor;
+        paint.setColor(textColor == null ? 0xFF000000 : textColor.getColorForState(STATE_NORMAL, 0xFF000000));
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+        boolean horizontal = mOrientation == SwipeMenu.HORIZONTAL;
+
+        int totalLength = 0;
+        int maxCross = 0;
+        int totalWeight = 0;
+        for (MenuItem item : mItems) {
+            measureContent(item);
+            item.measuredWidth = resolveItemSize(item.width, widthSize, item.contentWidth);
+            item.measuredHeight = resolveItemSize(item.height, heightSize, item.contentHeight);
+            totalLength += horizontal ? item.measuredWidth : item.measuredHeight;
+            maxCross = Math.max(maxCross, horizontal ? item.measuredHeight : item.measuredWidth);
+            totalWeight += item.weight;
+        }
+
+        int lengthMode = horizontal ? widthMode : heightMode;
+        int lengthSize = horizontal ? widthSize : heightSize;
+        if (lengthMode == MeasureSpec.EXACTLY && totalWeight > 0 && totalLength < lengthSize) {
+            int remaining = lengthSize - totalLength;
+            for (MenuItem item : mItems) {
+                if (item.weight <= 0) continue;
+                int share = remaining * item.weight / totalWeight;
+                if (horizontal) item.measuredWidth += share;
+                else item.measuredHeight += share;
+            }
+            totalLength = lengthSize;
+        }
+
+        int width = horizontal ? totalLength : maxCross;
+        int height = horizontal ? maxCross : totalLength;
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    private static int resolveItemSize(int size, int parentSize, int contentSize) {
+        if (size >= 0) return size;
+        if (size == ViewGroup.LayoutParams.MATCH_PARENT) return parentSize;
+        return contentSize;
+    }
+
+    private void measureContent(MenuItem item) {
+        int iconWidth = 0;
+        int iconHeight = 0;
+        if (item.icon != null) {
+            iconWidth = Math.max(0, item.icon.getIntrinsicWidth());
+            iconHeight = Math.max(0, item.icon.getIntrinsicHeight());
+        }
+        int textWidth = 0;
+        int textHeight = 0;
+        if (!TextUtils.isEmpty(item.text)) {
+            Paint.FontMetricsInt fontMetrics = item.fontMetrics;
+            item.paint.getFontMetricsInt(fontMetrics);
+            textWidth = (int) Math.ceil(item.paint.measureText(item.text));
+            textHeight = fontMetrics.bottom - fontMetrics.top;
+        }
+        item.iconWidth = iconWidth;
+        item.iconHeight = iconHeight;
+        item.textHeight = textHeight;
+        item.contentWidth = Math.max(iconWidth, textWidth);
+        item.contentHeight = iconHeight + textHeight;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        boolean horizontal = mOrientation == SwipeMenu.HORIZONTAL;
+        int offset = 0;
+        for (MenuItem item : mItems) {
+            Rect bounds = item.bounds;
+            if (horizontal) {
+                bounds.set(offset, 0, offset + item.measuredWidth, item.measuredHeight);
+                offset += item.measuredWidth;
+            } else {
+                bounds.set(0, offset, item.measuredWidth, offset + item.measuredHeight);
+                offset += item.measuredHeight;
+            }
+            if (item.background != null) item.background.setBounds(bounds);
+
+            int contentTop = bounds.top + (bounds.height() - item.contentHeight) / 2;
+            if (item.icon != null) {
+                int iconLeft = bounds.left + (bounds.width() - item.iconWidth) / 2;
+                item.icon.setBounds(iconLeft, contentTop, iconLeft + item.iconWidth, contentTop + item.iconHeight);
+            }
+            item.textX = bounds.exactCenterX();
+            item.textBaseline = contentTop + item.iconHeight - item.fontMetrics.top;
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        for (int i = 0, size = mItems.size(); i < size; i++) {
+            MenuItem item = mItems.get(i);
+            if (item.background != null) item.background.draw(canvas);
+            if (item.icon != null) item.icon.draw(canvas);
+            if (!TextUtils.isEmpty(item.text)) {
+                canvas.drawText(item.text, item.textX, item.textBaseline, item.paint);
+            }
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        for (int i = 0, size = mItems.size(); i < size; i++) {
+            MenuItem item = mItems.get(i);
+            if (who == item.background || who == item.icon) return true;
+        }
+        return super.verifyDrawable(who);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN: {
+                mDownX = event.getX();
+                mDownY = event.getY();
+                setPressedIndex(findItemIndex((int) mDownX, (int) mDownY));
+                return mPressedIndex >= 0;
+            }
+            case MotionEvent.ACTION_MOVE: {
+                if (Math.abs(event.getX() - mDownX) > mScaledTouchSlop
+                        || Math.abs(event.getY() - mDownY) > mScaledTouchSlop) {
+                    setPressedIndex(-1);
+                }
+                break;
+            }
+            case MotionEvent.ACTION_UP: {
+                int pressedIndex = mPressedIndex;
+                setPressedIndex(-1);
+                if (pressedIndex >= 0) onItemClick(mItems.get(pressedIndex));
+                break;
+            }
+            case MotionEvent.ACTION_CANCEL: {
+                setPressedIndex(-1);
+                break;
+            }
+        }
+        return true;
+    }
+
+    private int findItemIndex(int x, int y) {
+        for (int i = 0, size = mItems.size(); i < size; i++) {
+            if (mItems.get(i).bounds.contains(x, y)) return i;
+        }
+        return -1;
+    }
+
+    private void setPressedIndex(int index) {
+        if (mPressedIndex == index) return;
+        if (mPressedIndex >= 0 && mPressedIndex < mItems.size()) setItemState(mItems.get(mPressedIndex), STATE_NORMAL);
+        mPressedIndex = index;
+        if (index >= 0) setItemState(mItems.get(index), STATE_PRESSED);
+        invalidate();
+    }
+
+    private void setItemState(MenuItem item, int[] state) {
+        if (item.background != null) item.background.setState(state);
+        if (item.icon != null) item.icon.setState(state);
+        if (item.textColor != null) item.paint.setColor(item.textColor.getColorForState(state, item.paint.getColor()));
+    }
+
+    private void onItemClick(MenuItem item) {
+        if (mItemClickListener != null && mSwipeSwitch != null && mSwipeSwitch.isMenuOpen()) {
+            SwipeMenuBridge menuBridge = item.bridge;
+            if (mAdapterViewHolder != null) menuBridge.mAdapterPosition = mAdapterViewHolder.getAdapterPosition();
+            mItemClickListener.onItemClick(menuBridge);
+        }
+    }
+
+    private static class MenuItem {
+
+        final SwipeMenuBridge bridge;
+        final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        final Paint.FontMetricsInt fontMetrics = new Paint.FontMetricsInt();
+        final Rect bounds = new Rect();
+
+        int width;
+        int height;
+        int weight;
+        Drawable background;
+        Drawable icon;
+        String text;
+        ColorStateList textColor;
+
+        int iconWidth;
+        int iconHeight;
+        int textHeight;
+        int contentWidth;
+        int contentHeight;
+        int measuredWidth;
+        int measuredHeight;
+        float textX;
+        float textBaseline;
+
+        MenuItem(SwipeMenuBridge bridge) {
+            this.bridge = bridge;
+        }
+    }
+}
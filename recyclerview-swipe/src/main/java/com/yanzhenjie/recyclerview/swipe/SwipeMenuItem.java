@@ -17,6 +17,7 @@ package com.yanzhenjie.recyclerview.swipe;
 
 import android.content.Context;
 import android.content.res.ColorStateList;
+import android.content.res.Resources;
 import android.graphics.Typeface;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
@@ -41,6 +42,7 @@ public class SwipeMenuItem {
     private int width = -2;
     private int height = -2;
     private int weight = 0;
+    private boolean frozen;
 
     public SwipeMenuItem(Context context) {
         mContext = context;
@@ -51,6 +53,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setBackground(Drawable background) {
+        checkMutable();
         this.background = background;
         return this;
     }
@@ -60,6 +63,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setBackgroundColor(@ColorInt int color) {
+        checkMutable();
         this.background = new ColorDrawable(color);
         return this;
     }
@@ -73,6 +77,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setImage(Drawable icon) {
+        checkMutable();
         this.icon = icon;
         return this;
     }
@@ -86,6 +91,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setText(String title) {
+        checkMutable();
         this.title = title;
         return this;
     }
@@ -99,6 +105,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setTextColor(@ColorInt int titleColor) {
+        checkMutable();
         this.titleColor = ColorStateList.valueOf(titleColor);
         return this;
     }
@@ -108,6 +115,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setTextSize(@Px int titleSize) {
+        checkMutable();
         this.titleSize = titleSize;
         return this;
     }
@@ -117,6 +125,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setTextAppearance(@StyleRes int textAppearance) {
+        checkMutable();
         this.textAppearance = textAppearance;
         return this;
     }
@@ -126,6 +135,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setTextTypeface(Typeface textTypeface) {
+        checkMutable();
         this.textTypeface = textTypeface;
         return this;
     }
@@ -135,6 +145,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setWidth(int width) {
+        checkMutable();
         this.width = width;
         return this;
     }
@@ -144,6 +155,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setHeight(int height) {
+        checkMutable();
         this.height = height;
         return this;
     }
@@ -153,6 +165,7 @@ public class SwipeMenuItem {
     }
 
     public SwipeMenuItem setWeight(int weight) {
+        checkMutable();
         this.weight = weight;
         return this;
     }
@@ -160,4 +173,23 @@ public class SwipeMenuItem {
     public int getWeight() {
         return weight;
     }
+
+    void freeze() {
+        frozen = true;
+    }
+
+    private void checkMutable() {
+        if (frozen)
+            throw new IllegalStateException("The menu item is shared by items, change it in SwipeMenuCreator.");
+    }
+
+    /**
+     * Create a new instance of the shared drawable for one view, the bounds and state of a drawable can not be
+     * shared by views.
+     */
+    static Drawable newDrawable(Drawable drawable, Resources res) {
+        if (drawable == null) return null;
+        Drawable.ConstantState state = drawable.getConstantState();
+        return state == null ? drawable : state.newDrawable(res);
+    }
 }
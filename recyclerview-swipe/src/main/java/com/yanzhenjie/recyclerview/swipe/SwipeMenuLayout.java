@@ -18,6 +18,7 @@ package com.yanzhenjie.recyclerview.swipe;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.view.Gravity;
 import android.view.MotionEvent;
@@ -28,6 +29,8 @@ import android.widget.FrameLayout;
 import android.widget.OverScroller;
 import android.widget.TextView;
 
+import com.yanzhenjie.recyclerview.swipe.core.SwipeMath;
+
 
 public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
 
@@ -57,6 +60,13 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
     private int mScaledMinimumFlingVelocity;
     private int mScaledMaximumFlingVelocity;
 
+    private int mMenuViewType;
+    private SwipeMenu mLeftMenu;
+    private SwipeMenu mRightMenu;
+    private SwipeMenuItemClickListener mMenuItemClickListener;
+    private SwipeMenuViewPool mMenuViewPool;
+    private RecyclerView.ViewHolder mAdapterViewHolder;
+    private boolean mSwipeMenuDraw;
 
     public SwipeMenuLayout(Context context) {
         this(context, null);
@@ -152,6 +162,147 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
         this.mScrollerDuration = scrollerDuration;
     }
 
+    /**
+     * Set the menus created by {@link SwipeMenuCreator}, the menu views are created by {@link #attachMenus()}, or
+     * on the first horizontal drag or {@code smoothOpen*Menu()} call if they are not created yet.
+     *
+     * @param viewType              the view type of the item, as the key of {@link SwipeMenuViewPool}.
+     * @param leftMenu              the menu on the left.
+     * @param rightMenu             the menu on the right.
+     * @param menuItemClickListener menu item click listener.
+     * @param menuViewPool          pool to take and return menu views, can be null.
+     */
+    void setSwipeMenu(int viewType, SwipeMenu leftMenu, SwipeMenu rightMenu,
+                      SwipeMenuItemClickListener menuItemClickListener, SwipeMenuViewPool menuViewPool) {
+        // The menu views were built from other menus, they can not be reused.
+        removeMenus(false);
+        this.mMenuViewType = viewType;
+        this.mLeftMenu = leftMenu;
+        this.mRightMenu = rightMenu;
+        this.mMenuItemClickListener = menuItemClickListener;
+        this.mMenuViewPool = menuViewPool;
+        applyMenuSettings(leftMenu);
+        applyMenuSettings(rightMenu);
+    }
+
+    /**
+     * Whether the menus set by {@link #setSwipeMenu} are the given menus.
+     */
+    boolean isSwipeMenu(SwipeMenu leftMenu, SwipeMenu rightMenu) {
+        return mLeftMenu == leftMenu && mRightMenu == rightMenu;
+    }
+
+    private void applyMenuSettings(SwipeMenu swipeMenu) {
+        if (swipeMenu == null) return;
+        if (swipeMenu.getOpenPercent() >= 0) setOpenPercent(swipeMenu.getOpenPercent());
+        if (swipeMenu.getScrollerDuration() >= 0) setScrollerDuration(swipeMenu.getScrollerDuration());
+    }
+
+    /**
+     * Bind the ViewHolder to the menu views, the menu item click is reported with its adapter position.
+     */
+    void bindViewHolder(RecyclerView.ViewHolder adapterViewHolder) {
+        this.mAdapterViewHolder = adapterViewHolder;
+        int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            View childView = getChildAt(i);
+            if (childView instanceof SwipeMenuContainer) {
+                ((SwipeMenuContainer) childView).bindViewHolder(adapterViewHolder);
+            }
+        }
+    }
+
+    /**
+     * Draw the menus set by {@link #setSwipeMenu} with {@link SwipeMenuDrawView} instead of {@link SwipeMenuView}.
+     */
+    void setSwipeMenuDraw(boolean swipeMenuDraw) {
+        this.mSwipeMenuDraw = swipeMenuDraw;
+    }
+
+    /**
+     * Create the menu views of the menus set by {@link #setSwipeMenu}, reuse them from the pool if possible.
+     */
+    void attachMenus() {
+        if (mSwipeLeftHorizontal == null && hasMenuItems(mLeftMenu)) {
+            View menuView = obtainMenuView(mLeftMenu, SwipeMenuRecyclerView.LEFT_DIRECTION);
+            mSwipeLeftHorizontal = new SwipeLeftHorizontal(menuView);
+        }
+        if (mSwipeRightHorizontal == null && hasMenuItems(mRightMenu)) {
+            View menuView = obtainMenuView(mRightMenu, SwipeMenuRecyclerView.RIGHT_DIRECTION);
+            mSwipeRightHorizontal = new SwipeRightHorizontal(menuView);
+        }
+    }
+
+    /**
+     * Close the menus without animation, the menu views stay attached for the next bind of the item.
+     */
+    void closeMenusImmediately() {
+        if (!mScroller.isFinished()) mScroller.abortAnimation();
+        mSwipeCurrentHorizontal = null;
+        scrollTo(0, 0);
+    }
+
+    /**
+     * Close the menus and return the menu views to the pool, called when the item is discarded. Menus declared in xml
+     * are not touched.
+     */
+    void detachMenus() {
+        removeMenus(true);
+    }
+
+    private void removeMenus(boolean recycle) {
+        if (mLeftMenu == null && mRightMenu == null) return;
+
+        closeMenusImmediately();
+
+        if (mSwipeLeftHorizontal != null) {
+            recycleMenuView(mSwipeLeftHorizontal.getMenuView(), SwipeMenuRecyclerView.LEFT_DIRECTION, recycle);
+            mSwipeLeftHorizontal = null;
+        }
+        if (mSwipeRightHorizontal != null) {
+            recycleMenuView(mSwipeRightHorizontal.getMenuView(), SwipeMenuRecyclerView.RIGHT_DIRECTION, recycle);
+            mSwipeRightHorizontal = null;
+        }
+    }
+
+    private static boolean hasMenuItems(SwipeMenu swipeMenu) {
+        return swipeMenu != null && swipeMenu.getMenuItems().size() > 0;
+    }
+
+    private View obtainMenuView(SwipeMenu swipeMenu, @SwipeMenuRecyclerView.DirectionMode int direction) {
+        SwipeMenuContainer menuContainer = null;
+        if (mMenuViewPool != null) menuContainer = mMenuViewPool.acquire(mMenuViewType, direction);
+        if (menuContainer == null) {
+            menuContainer = mSwipeMenuDraw ? new SwipeMenuDrawView(getContext()) : new SwipeMenuView(getContext());
+            menuContainer.createMenu(swipeMenu, this, mMenuItemClickListener, direction);
+        } else {
+            menuContainer.setSwipeSwitch(this);
+        }
+        menuContainer.bindViewHolder(mAdapterViewHolder);
+
+        View menuView = (View) menuContainer;
+
+        LayoutParams params = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.MATCH_PARENT);
+        if (ViewCompat.isLaidOut(this) && !isLayoutRequested()) {
+            // Created by a drag or smoothOpen, measure and layout it right now instead of waiting a layout pass.
+            addViewInLayout(menuView, -1, params, true);
+            int widthMeasureSpec = MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.EXACTLY);
+            int contentViewHeight = mContentView == null ? 0 : mContentView.getMeasuredHeight();
+            measureMenuView(menuView, widthMeasureSpec, contentViewHeight);
+            layoutMenuView(menuView, direction);
+        } else {
+            addView(menuView, params);
+        }
+        return menuView;
+    }
+
+    private void recycleMenuView(View menuView, @SwipeMenuRecyclerView.DirectionMode int direction, boolean recycle) {
+        removeView(menuView);
+        if (recycle && mMenuViewPool != null && menuView instanceof SwipeMenuContainer) {
+            mMenuViewPool.release(mMenuViewType, direction, (SwipeMenuContainer) menuView);
+        }
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
         boolean isIntercepted = super.onInterceptTouchEvent(ev);
@@ -205,6 +356,7 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
                 int disY = (int) (mLastY - ev.getY());
                 if (!mDragging && Math.abs(disX) > mScaledTouchSlop && Math.abs(disX) > Math.abs(disY)) {
                     mDragging = true;
+                    attachMenus();
                 }
                 if (mDragging) {
                     if (mSwipeCurrentHorizontal == null || shouldResetSwipe) {
@@ -291,27 +443,8 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
      * @return finish duration.
      */
     private int getSwipeDuration(MotionEvent ev, int velocity) {
-        int sx = getScrollX();
-        int dx = (int) (ev.getX() - sx);
-        final int width = mSwipeCurrentHorizontal.getMenuWidth();
-        final int halfWidth = width / 2;
-        final float distanceRatio = Math.min(1f, 1.0f * Math.abs(dx) / width);
-        final float distance = halfWidth + halfWidth * distanceInfluenceForSnapDuration(distanceRatio);
-        int duration;
-        if (velocity > 0) {
-            duration = 4 * Math.round(1000 * Math.abs(distance / velocity));
-        } else {
-            final float pageDelta = (float) Math.abs(dx) / width;
-            duration = (int) ((pageDelta + 1) * 100);
-        }
-        duration = Math.min(duration, mScrollerDuration);
-        return duration;
-    }
-
-    float distanceInfluenceForSnapDuration(float f) {
-        f -= 0.5f; // center the values about 0.
-        f *= 0.3f * Math.PI / 2.0f;
-        return (float) Math.sin(f);
+        int dx = (int) (ev.getX() - getScrollX());
+        return SwipeMath.getSwipeDuration(dx, mSwipeCurrentHorizontal.getMenuWidth(), velocity, mScrollerDuration);
     }
 
     private void judgeOpenClose(int dx, int dy) {
@@ -357,11 +490,13 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
     }
 
     public boolean hasLeftMenu() {
-        return mSwipeLeftHorizontal != null && mSwipeLeftHorizontal.canSwipe();
+        if (mSwipeLeftHorizontal == null) return hasMenuItems(mLeftMenu);
+        return mSwipeLeftHorizontal.canSwipe();
     }
 
     public boolean hasRightMenu() {
-        return mSwipeRightHorizontal != null && mSwipeRightHorizontal.canSwipe();
+        if (mSwipeRightHorizontal == null) return hasMenuItems(mRightMenu);
+        return mSwipeRightHorizontal.canSwipe();
     }
 
     @Override
@@ -426,6 +561,7 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
 
     @Override
     public void smoothOpenLeftMenu(int duration) {
+        attachMenus();
         if (mSwipeLeftHorizontal != null) {
             mSwipeCurrentHorizontal = mSwipeLeftHorizontal;
             smoothOpenMenu(duration);
@@ -434,6 +570,7 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
 
     @Override
     public void smoothOpenRightMenu(int duration) {
+        attachMenus();
         if (mSwipeRightHorizontal != null) {
             mSwipeCurrentHorizontal = mSwipeRightHorizontal;
             smoothOpenMenu(duration);
@@ -487,21 +624,11 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
         }
 
         if (mSwipeLeftHorizontal != null) {
-            View leftMenu = mSwipeLeftHorizontal.getMenuView();
-            int menuViewHeight = contentViewHeight == 0 ? leftMenu.getMeasuredHeightAndState() : contentViewHeight;
-
-            int menuWidthSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(widthMeasureSpec), MeasureSpec.AT_MOST);
-            int menuHeightSpec = MeasureSpec.makeMeasureSpec(menuViewHeight, MeasureSpec.EXACTLY);
-            leftMenu.measure(menuWidthSpec, menuHeightSpec);
+            measureMenuView(mSwipeLeftHorizontal.getMenuView(), widthMeasureSpec, contentViewHeight);
         }
 
         if (mSwipeRightHorizontal != null) {
-            View rightMenu = mSwipeRightHorizontal.getMenuView();
-            int menuViewHeight = contentViewHeight == 0 ? rightMenu.getMeasuredHeightAndState() : contentViewHeight;
-
-            int menuWidthSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(widthMeasureSpec), MeasureSpec.AT_MOST);
-            int menuHeightSpec = MeasureSpec.makeMeasureSpec(menuViewHeight, MeasureSpec.EXACTLY);
-            rightMenu.measure(menuWidthSpec, menuHeightSpec);
+            measureMenuView(mSwipeRightHorizontal.getMenuView(), widthMeasureSpec, contentViewHeight);
         }
 
         if (contentViewHeight > 0) {
@@ -522,23 +649,33 @@ public class SwipeMenuLayout extends FrameLayout implements SwipeSwitch {
         }
 
         if (mSwipeLeftHorizontal != null) {
-            View leftMenu = mSwipeLeftHorizontal.getMenuView();
-            int menuViewWidth = leftMenu.getMeasuredWidthAndState();
-            int menuViewHeight = leftMenu.getMeasuredHeightAndState();
-            LayoutParams lp = (LayoutParams) leftMenu.getLayoutParams();
-            int top = getPaddingTop() + lp.topMargin;
-            leftMenu.layout(-menuViewWidth, top, 0, top + menuViewHeight);
+            layoutMenuView(mSwipeLeftHorizontal.getMenuView(), SwipeMenuRecyclerView.LEFT_DIRECTION);
         }
 
         if (mSwipeRightHorizontal != null) {
-            View rightMenu = mSwipeRightHorizontal.getMenuView();
-            int menuViewWidth = rightMenu.getMeasuredWidthAndState();
-            int menuViewHeight = rightMenu.getMeasuredHeightAndState();
-            LayoutParams lp = (LayoutParams) rightMenu.getLayoutParams();
-            int top = getPaddingTop() + lp.topMargin;
+            layoutMenuView(mSwipeRightHorizontal.getMenuView(), SwipeMenuRecyclerView.RIGHT_DIRECTION);
+        }
+    }
+
+    private void measureMenuView(View menuView, int widthMeasureSpec, int contentViewHeight) {
+        int menuViewHeight = contentViewHeight == 0 ? menuView.getMeasuredHeightAndState() : contentViewHeight;
 
+        int menuWidthSpec = MeasureSpec.makeMeasureSpec(MeasureSpec.getSize(widthMeasureSpec), MeasureSpec.AT_MOST);
+        int menuHeightSpec = MeasureSpec.makeMeasureSpec(menuViewHeight, MeasureSpec.EXACTLY);
+        menuView.measure(menuWidthSpec, menuHeightSpec);
+    }
+
+    private void layoutMenuView(View menuView, @SwipeMenuRecyclerView.DirectionMode int direction) {
+        int menuViewWidth = menuView.getMeasuredWidthAndState();
+        int menuViewHeight = menuView.getMeasuredHeightAndState();
+        LayoutParams lp = (LayoutParams) menuView.getLayoutParams();
+        int top = getPaddingTop() + lp.topMargin;
+
+        if (direction == SwipeMenuRecyclerView.LEFT_DIRECTION) {
+            menuView.layout(-menuViewWidth, top, 0, top + menuViewHeight);
+        } else {
             int parentViewWidth = getMeasuredWidthAndState();
-            rightMenu.layout(parentViewWidth, top, parentViewWidth + menuViewWidth, top + menuViewHeight);
+            menuView.layout(parentViewWidth, top, parentViewWidth + menuViewWidth, top + menuViewHeight);
         }
     }
 
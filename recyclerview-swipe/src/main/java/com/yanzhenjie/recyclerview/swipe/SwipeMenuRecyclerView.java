@@ -17,6 +17,7 @@ package com.yanzhenjie.recyclerview.swipe;
 
 import android.content.Context;
 import android.support.annotation.IntDef;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
@@ -37,6 +38,7 @@ import com.yanzhenjie.recyclerview.swipe.touch.OnItemStateChangedListener;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -77,9 +79,15 @@ public class SwipeMenuRecyclerView extends RecyclerView {
     private SwipeMenuCreator mSwipeMenuCreator;
     private SwipeMenuItemClickListener mSwipeMenuItemClickListener;
     private SwipeItemClickListener mSwipeItemClickListener;
+    private SwipeMenuViewPool mSwipeMenuViewPool = new SwipeMenuViewPool();
+    private boolean mSwipeMenuLazy;
+    private boolean mSwipeMenuDraw;
 
     private NotifyListener notifyListener;
+    private boolean mNotifyPosted;
+    private int mNotifiedItemCount;
     private SwipeAdapterWrapper mAdapterWrapper;
+    private boolean mAdapterObserverRegistered;
 
     public void setNotifyListener(NotifyListener notifyListener){
         this.notifyListener = notifyListener;
@@ -96,6 +104,7 @@ public class SwipeMenuRecyclerView extends RecyclerView {
     public SwipeMenuRecyclerView(Context context, AttributeSet attrs, int defStyle) {
         super(context, attrs, defStyle);
         mScaleTouchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+        setRecycledViewPool(new SwipeRecycledViewPool());
     }
 
     private void initializeItemTouchHelper() {
@@ -292,6 +301,65 @@ public class SwipeMenuRecyclerView extends RecyclerView {
         super.setLayoutManager(layoutManager);
     }
 
+    /**
+     * Set whether the menu views of the item are created only when the item is swiped or the menu is opened by
+     * {@link #smoothOpenMenu(int, int, int)}, instead of when the item is bound. Default is false.
+     *
+     * @param lazy true is lazy, otherwise false.
+     */
+    public void setSwipeMenuLazyEnabled(boolean lazy) {
+        checkAdapterExist("Cannot set lazy menu, setAdapter has already been called.");
+        this.mSwipeMenuLazy = lazy;
+    }
+
+    /**
+     * Whether the menu views of the item are created only when the item is swiped.
+     */
+    public boolean isSwipeMenuLazyEnabled() {
+        return mSwipeMenuLazy;
+    }
+
+    /**
+     * Set whether the menus are drawn in a single view, the backgrounds, icons and texts of all items are drawn on the
+     * canvas instead of an ImageView and a TextView for each item. Default is false.
+     *
+     * @param draw true is drawn, otherwise false.
+     */
+    public void setSwipeMenuDrawEnabled(boolean draw) {
+        checkAdapterExist("Cannot set drawn menu, setAdapter has already been called.");
+        this.mSwipeMenuDraw = draw;
+    }
+
+    /**
+     * Whether the menus are drawn in a single view.
+     */
+    public boolean isSwipeMenuDrawEnabled() {
+        return mSwipeMenuDraw;
+    }
+
+    /**
+     * Discard the menus created by {@link SwipeMenuCreator}, it is called again for each view type when the items are
+     * bound. The menus are created once per view type and shared, call it when the menus need to change.
+     * <p>If the menus of a view type had no items, its ViewHolders have no room for a menu, then all ViewHolders are
+     * removed and created again, and the recycled ViewHolders are cleared from the {@link RecycledViewPool}.</p>
+     */
+    public void invalidateSwipeMenus() {
+        if (mAdapterWrapper == null) return;
+        if (mAdapterWrapper.invalidateSwipeMenus()) {
+            super.swapAdapter(mAdapterWrapper, true);
+            getRecycledViewPool().clear();
+        } else {
+            mAdapterWrapper.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Get the pool of menu views, to set the pool size of the view type or read the hit and miss counts.
+     */
+    public SwipeMenuViewPool getSwipeMenuViewPool() {
+        return mSwipeMenuViewPool;
+    }
+
     /**
      * Get the original adapter.
      */
@@ -303,19 +371,26 @@ public class SwipeMenuRecyclerView extends RecyclerView {
 
     @Override
     public void setAdapter(Adapter adapter) {
-        if (mAdapterWrapper != null) {
+        if (mAdapterWrapper != null && mAdapterObserverRegistered) {
             mAdapterWrapper.getOriginAdapter().unregisterAdapterDataObserver(mAdapterDataObserver);
         }
+        mAdapterObserverRegistered = false;
 
+        mSwipeMenuViewPool.clear();
+        mNotifiedItemCount = adapter == null ? 0 : adapter.getItemCount();
         if (adapter == null) {
             mAdapterWrapper = null;
         } else {
             adapter.registerAdapterDataObserver(mAdapterDataObserver);
+            mAdapterObserverRegistered = true;
 
             mAdapterWrapper = new SwipeAdapterWrapper(getContext(), adapter);
             mAdapterWrapper.setSwipeItemClickListener(mSwipeItemClickListener);
             mAdapterWrapper.setSwipeMenuCreator(mSwipeMenuCreator);
             mAdapterWrapper.setSwipeMenuItemClickListener(mSwipeMenuItemClickListener);
+            mAdapterWrapper.setSwipeMenuViewPool(mSwipeMenuViewPool);
+            mAdapterWrapper.setSwipeMenuLazy(mSwipeMenuLazy);
+            mAdapterWrapper.setSwipeMenuDraw(mSwipeMenuDraw);
 
             if (mHeaderViewList.size() > 0) {
                 for (View view : mHeaderViewList) {
@@ -331,58 +406,112 @@ public class SwipeMenuRecyclerView extends RecyclerView {
         super.setAdapter(mAdapterWrapper);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mAdapterWrapper != null && !mAdapterObserverRegistered) {
+            // Changes while detached were not observed.
+            mAdapterWrapper.getOriginAdapter().registerAdapterDataObserver(mAdapterDataObserver);
+            mAdapterObserverRegistered = true;
+            mAdapterWrapper.invalidateContentItemCount();
+            mAdapterWrapper.notifyDataSetChanged();
+            scheduleNotify();
+        }
+    }
+
     @Override
     protected void onDetachedFromWindow() {
-        if (mAdapterWrapper != null) {
+        if (mEndCheckPosted) {
+            removeCallbacks(mEndCheckRunnable);
+            mEndCheckPosted = false;
+        }
+        if (mNotifyPosted) {
+            removeCallbacks(mNotifyRunnable);
+            mNotifyPosted = false;
+        }
+        if (mAdapterWrapper != null && mAdapterObserverRegistered) {
             mAdapterWrapper.getOriginAdapter().unregisterAdapterDataObserver(mAdapterDataObserver);
+            mAdapterObserverRegistered = false;
         }
         super.onDetachedFromWindow();
     }
 
+    private void onContentChanged() {
+        mAdapterWrapper.invalidateContentItemCount();
+        scheduleNotify();
+        mContentChangeCount++;
+        if (mCheckLoadMoreOnChange) {
+            // The page is in the adapter now, the layout that follows this change can tell if it fills the list.
+            mCheckLoadMoreOnChange = false;
+            mCheckLoadMoreOnLayout = true;
+        }
+    }
+
     private AdapterDataObserver mAdapterDataObserver = new AdapterDataObserver() {
         @Override
         public void onChanged() {
-            if(notifyListener != null) notifyListener.notifyDataSetChanged(mAdapterWrapper.getOriginAdapter().getItemCount());
+            onContentChanged();
             mAdapterWrapper.notifyDataSetChanged();
         }
 
         @Override
         public void onItemRangeChanged(int positionStart, int itemCount) {
-            if(notifyListener != null) notifyListener.notifyDataSetChanged(mAdapterWrapper.getOriginAdapter().getItemCount());
+            onContentChanged();
             positionStart += getHeaderItemCount();
             mAdapterWrapper.notifyItemRangeChanged(positionStart, itemCount);
         }
 
         @Override
         public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
-            if(notifyListener != null) notifyListener.notifyDataSetChanged(mAdapterWrapper.getOriginAdapter().getItemCount());
+            onContentChanged();
             positionStart += getHeaderItemCount();
             mAdapterWrapper.notifyItemRangeChanged(positionStart, itemCount, payload);
         }
 
         @Override
         public void onItemRangeInserted(int positionStart, int itemCount) {
-            if(notifyListener != null) notifyListener.notifyDataSetChanged(mAdapterWrapper.getOriginAdapter().getItemCount());
+            onContentChanged();
             positionStart += getHeaderItemCount();
             mAdapterWrapper.notifyItemRangeInserted(positionStart, itemCount);
         }
 
         @Override
         public void onItemRangeRemoved(int positionStart, int itemCount) {
-            if(notifyListener != null) notifyListener.notifyDataSetChanged(mAdapterWrapper.getOriginAdapter().getItemCount());
+            onContentChanged();
             positionStart += getHeaderItemCount();
             mAdapterWrapper.notifyItemRangeRemoved(positionStart, itemCount);
         }
 
         @Override
         public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
-            if(notifyListener != null) notifyListener.notifyDataSetChanged(mAdapterWrapper.getOriginAdapter().getItemCount());
+            onContentChanged();
             fromPosition += getHeaderItemCount();
             toPosition += getHeaderItemCount();
             mAdapterWrapper.notifyItemMoved(fromPosition, toPosition);
         }
     };
 
+    /**
+     * All data changes of one frame are reported to {@link NotifyListener} once, on the next animation frame.
+     */
+    private void scheduleNotify() {
+        if (notifyListener == null || mNotifyPosted) return;
+        mNotifyPosted = true;
+        ViewCompat.postOnAnimation(this, mNotifyRunnable);
+    }
+
+    private final Runnable mNotifyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mNotifyPosted = false;
+            if (notifyListener == null || mAdapterWrapper == null) return;
+            int count = mAdapterWrapper.getOriginAdapter().getItemCount();
+            int delta = count - mNotifiedItemCount;
+            mNotifiedItemCount = count;
+            notifyListener.notifyDataSetChanged(count, delta);
+        }
+    };
+
     private List<View> mHeaderViewList = new ArrayList<>();
     private List<View> mFooterViewList = new ArrayList<>();
 
@@ -525,7 +654,8 @@ public class SwipeMenuRecyclerView extends RecyclerView {
                     mDownY = y;
                     isIntercepted = false;
 
-                    int touchingPosition = getChildAdapterPosition(findChildViewUnder(x, y));
+                    View touchingView = findChildViewUnder(x, y);
+                    int touchingPosition = touchingView == null ? NO_POSITION : getChildAdapterPosition(touchingView);
                     if (touchingPosition != mOldTouchedPosition && mOldSwipedLayout != null && mOldSwipedLayout.isMenuOpen()) {
                         mOldSwipedLayout.smoothCloseMenu();
                         isIntercepted = true;
@@ -535,8 +665,8 @@ public class SwipeMenuRecyclerView extends RecyclerView {
                         mOldSwipedLayout = null;
                         mOldTouchedPosition = INVALID_POSITION;
                     } else {
-                        ViewHolder vh = findViewHolderForAdapterPosition(touchingPosition);
-                        if (vh != null) {
+                        ViewHolder vh = touchingView == null ? null : getChildViewHolder(touchingView);
+                        if (vh != null && touchingPosition != NO_POSITION) {
                             View itemView = getSwipeMenuView(vh.itemView);
                             if (itemView instanceof SwipeMenuLayout) {
                                 mOldSwipedLayout = (SwipeMenuLayout) itemView;
@@ -602,12 +732,26 @@ public class SwipeMenuRecyclerView extends RecyclerView {
         return super.onTouchEvent(e);
     }
 
+    /**
+     * Find the {@link SwipeMenuLayout} of the item, the result is kept on the item view so the view tree is only
+     * searched the first time.
+     */
     private View getSwipeMenuView(View itemView) {
         if (itemView instanceof SwipeMenuLayout) return itemView;
-        List<View> unvisited = new ArrayList<>();
+        Object cached = itemView.getTag(R.id.recycler_swipe_menu_layout);
+        if (cached instanceof SwipeMenuLayout) return (View) cached;
+        if (cached != null) return itemView;
+
+        View swipeMenuLayout = findSwipeMenuLayout(itemView);
+        itemView.setTag(R.id.recycler_swipe_menu_layout, swipeMenuLayout == null ? Boolean.FALSE : swipeMenuLayout);
+        return swipeMenuLayout == null ? itemView : swipeMenuLayout;
+    }
+
+    private static View findSwipeMenuLayout(View itemView) {
+        ArrayDeque<View> unvisited = new ArrayDeque<>();
         unvisited.add(itemView);
         while (!unvisited.isEmpty()) {
-            View child = unvisited.remove(0);
+            View child = unvisited.poll();
             if (!(child instanceof ViewGroup)) { // view
                 continue;
             }
@@ -616,9 +760,11 @@ public class SwipeMenuRecyclerView extends RecyclerView {
             final int childCount = group.getChildCount();
             for (int i = 0; i < childCount; i++) unvisited.add(group.getChildAt(i));
         }
-        return itemView;
+        return null;
     }
 
+    private static final EndReachDetector LINEAR_DETECTOR = new EndReachDetector.Linear();
+
     private int mScrollState = -1;
 
     private boolean isMoreLoading, isRefreshing = false;
@@ -626,47 +772,135 @@ public class SwipeMenuRecyclerView extends RecyclerView {
     private boolean loadMoveIsAdd, hasMore;
     private LoadMoreAction mLoadMoreAction;
     private LoadMoreListener mLoadMoreListener;
+    private int mLoadMorePrefetchItems;
+    private int mLoadMorePrefetchPixels;
+    private boolean mCheckLoadMoreOnLayout;
+    private boolean mCheckLoadMoreOnChange;
+    private int mContentChangeCount;
+    private int mLoadStartChangeCount;
+    private EndReachDetector mEndReachDetector;
+    private EndReachDetector mStaggeredGridDetector;
+    private boolean mEndCheckPosted;
 
     @Override
     public void onScrollStateChanged(int state) {
         this.mScrollState = state;
     }
 
+    /**
+     * Load the next page when the last visible item is within the count of items from the end, instead of waiting
+     * for the load more item to show. Default is 0.
+     *
+     * @param itemCount the count of items from the end.
+     */
+    public void setLoadMorePrefetchDistance(int itemCount) {
+        this.mLoadMorePrefetchItems = Math.max(0, itemCount);
+    }
+
+    public int getLoadMorePrefetchDistance() {
+        return mLoadMorePrefetchItems;
+    }
+
+    /**
+     * Load the next page when the list can only be scrolled this many pixels further, it works with
+     * {@link #setLoadMorePrefetchDistance(int)}, whichever is reached first. Default is 0.
+     *
+     * @param pixels the distance in pixels from the end.
+     */
+    public void setLoadMorePrefetchPixels(int pixels) {
+        this.mLoadMorePrefetchPixels = Math.max(0, pixels);
+    }
+
+    public int getLoadMorePrefetchPixels() {
+        return mLoadMorePrefetchPixels;
+    }
+
+    /**
+     * Set the detector to find the end of the list, for layout managers other than {@link LinearLayoutManager},
+     * {@link GridLayoutManager} and {@link StaggeredGridLayoutManager}.
+     *
+     * @param endReachDetector the detector, null to use the built-in one.
+     */
+    public void setEndReachDetector(EndReachDetector endReachDetector) {
+        this.mEndReachDetector = endReachDetector;
+    }
+
     @Override
     public void onScrolled(int dx, int dy) {
-        if (!loadMoreEnable || isMoreLoading || !hasMore || isRefreshing) return;
-        LayoutManager layoutManager = getLayoutManager();
-        if (layoutManager != null && layoutManager instanceof LinearLayoutManager) {
-            LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
-
-            int itemCount = layoutManager.getItemCount();
-            if (itemCount <= 0) return;
+        if (!canLoadMore()) return;
+        // Check once a frame instead of every scroll delta.
+        if (!mEndCheckPosted && (mScrollState == SCROLL_STATE_DRAGGING || mScrollState == SCROLL_STATE_SETTLING)) {
+            mEndCheckPosted = true;
+            ViewCompat.postOnAnimation(this, mEndCheckRunnable);
+        }
+    }
 
-            int lastVisiblePosition = linearLayoutManager.findLastVisibleItemPosition();
+    private final Runnable mEndCheckRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mEndCheckPosted = false;
+            if (canLoadMore() && isNearEnd()) dispatchLoadMore();
+        }
+    };
 
-            if (itemCount == lastVisiblePosition + 1 &&
-                    (mScrollState == SCROLL_STATE_DRAGGING || mScrollState == SCROLL_STATE_SETTLING)) {
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        if (mCheckLoadMoreOnLayout) {
+            mCheckLoadMoreOnLayout = false;
+            // The list can not be scrolled to load more when the items do not fill it.
+            if (canLoadMore() && mScrollState != SCROLL_STATE_DRAGGING && !isViewportFull()) {
                 dispatchLoadMore();
             }
-        } else if (layoutManager != null && layoutManager instanceof StaggeredGridLayoutManager) {
-            StaggeredGridLayoutManager staggeredGridLayoutManager = (StaggeredGridLayoutManager) layoutManager;
+        }
+    }
 
-            int itemCount = layoutManager.getItemCount();
-            if (itemCount <= 0) return;
+    private boolean canLoadMore() {
+        return loadMoreEnable && !isMoreLoading && hasMore && !isRefreshing;
+    }
 
-            int[] lastVisiblePositionArray = staggeredGridLayoutManager.findLastCompletelyVisibleItemPositions(null);
-            int lastVisiblePosition = lastVisiblePositionArray[lastVisiblePositionArray.length - 1];
+    private boolean isNearEnd() {
+        LayoutManager layoutManager = getLayoutManager();
+        if (layoutManager == null) return false;
+        int itemCount = layoutManager.getItemCount();
+        if (itemCount <= 0) return false;
+
+        int lastVisiblePosition = getEndReachDetector(layoutManager).findLastVisiblePosition(layoutManager);
+        if (lastVisiblePosition != NO_POSITION && lastVisiblePosition >= itemCount - 1 - mLoadMorePrefetchItems)
+            return true;
+        return mLoadMorePrefetchPixels > 0 && getRemainingScrollDistance(layoutManager) <= mLoadMorePrefetchPixels;
+    }
 
-            if (itemCount == lastVisiblePosition + 1 &&
-                    (mScrollState == SCROLL_STATE_DRAGGING || mScrollState == SCROLL_STATE_SETTLING)) {
-                dispatchLoadMore();
-            }
+    private EndReachDetector getEndReachDetector(LayoutManager layoutManager) {
+        if (mEndReachDetector != null) return mEndReachDetector;
+        if (layoutManager instanceof StaggeredGridLayoutManager) {
+            if (mStaggeredGridDetector == null) mStaggeredGridDetector = new EndReachDetector.StaggeredGrid();
+            return mStaggeredGridDetector;
         }
+        return LINEAR_DETECTOR;
+    }
+
+    private int getRemainingScrollDistance(LayoutManager layoutManager) {
+        if (layoutManager.canScrollHorizontally()) {
+            return computeHorizontalScrollRange() - computeHorizontalScrollOffset() - computeHorizontalScrollExtent();
+        }
+        return computeVerticalScrollRange() - computeVerticalScrollOffset() - computeVerticalScrollExtent();
+    }
+
+    private boolean isViewportFull() {
+        LayoutManager layoutManager = getLayoutManager();
+        if (layoutManager == null) return true;
+        if (layoutManager.canScrollHorizontally()) {
+            return canScrollHorizontally(1) || canScrollHorizontally(-1);
+        }
+        return canScrollVertically(1) || canScrollVertically(-1);
     }
 
     private void dispatchLoadMore() {
         if(!isMoreLoading) {
             isMoreLoading = true;
+            mCheckLoadMoreOnChange = false;
+            mLoadStartChangeCount = mContentChangeCount;
             if (mLoadMoreAction != null) mLoadMoreAction.onLoading();
             if (mLoadMoreListener != null) mLoadMoreListener.onLoadMore();
         }
@@ -724,6 +958,8 @@ public class SwipeMenuRecyclerView extends RecyclerView {
     public void setRefreshIngState() {
         setLoadMoreView(false);
         isRefreshing = true;
+        mCheckLoadMoreOnChange = false;
+        mLoadStartChangeCount = mContentChangeCount;
     }
 
     public void setRefreshError() {
@@ -742,7 +978,8 @@ public class SwipeMenuRecyclerView extends RecyclerView {
 
 
     /**
-     * Load more done.
+     * Load more done. When the list is still not full the next page is requested after the layout that follows the
+     * adapter change of this page, so a page that is notified later (e.g. after a diff) is measured too.
      *
      * @param noDataVisibleMore : 没有更多数据的时候是否显示提示item
      */
@@ -753,7 +990,15 @@ public class SwipeMenuRecyclerView extends RecyclerView {
         if (hasMore) {
             setLoadMoreView(true);
             if (mLoadMoreAction != null) mLoadMoreAction.onLoadFinish(hasMore);
+            if (mContentChangeCount != mLoadStartChangeCount) {
+                mCheckLoadMoreOnLayout = true;
+                requestLayout();
+            } else {
+                // The page has not reached the adapter yet (e.g. it is still being diffed), check after it has.
+                mCheckLoadMoreOnChange = true;
+            }
         } else {
+            mCheckLoadMoreOnChange = false;
             if (noDataVisibleMore) {
                 if (mLoadMoreAction != null) mLoadMoreAction.onLoadFinish(hasMore);
             } else {
@@ -771,6 +1016,16 @@ public class SwipeMenuRecyclerView extends RecyclerView {
         }
     }
 
+    /**
+     * 取消正在进行的加载更多, 之后可以再次触发加载更多
+     */
+    public void cancelLoadMore() {
+        if (!isMoreLoading) return;
+        isMoreLoading = false;
+        //恢复加载更多item, 不再显示加载中
+        if (mLoadMoreAction != null) mLoadMoreAction.onLoadFinish(hasMore);
+    }
+
 
     /**
      * 由LoadMoreView实现
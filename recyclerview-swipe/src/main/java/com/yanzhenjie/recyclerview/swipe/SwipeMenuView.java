@@ -32,7 +32,7 @@ import android.widget.TextView;
 import java.util.List;
 
 
-public class SwipeMenuView extends LinearLayout implements View.OnClickListener {
+public class SwipeMenuView extends LinearLayout implements SwipeMenuContainer, View.OnClickListener {
 
     private RecyclerView.ViewHolder mAdapterVIewHolder;
     private SwipeSwitch mSwipeSwitch;
@@ -52,6 +52,7 @@ public class SwipeMenuView extends LinearLayout implements View.OnClickListener
         super(context, attrs, defStyleAttr);
     }
 
+    @Override
     public void createMenu(SwipeMenu swipeMenu, SwipeSwitch swipeSwitch,
                            SwipeMenuItemClickListener swipeMenuItemClickListener,
                            @SwipeMenuRecyclerView.DirectionMode int direction) {
@@ -60,6 +61,8 @@ public class SwipeMenuView extends LinearLayout implements View.OnClickListener
         this.mSwipeSwitch = swipeSwitch;
         this.mItemClickListener = swipeMenuItemClickListener;
         this.mDirection = direction;
+        // noinspection WrongConstant
+        setOrientation(swipeMenu.getOrientation());
 
         List<SwipeMenuItem> items = swipeMenu.getMenuItems();
         for (int i = 0; i < items.size(); i++) {
@@ -72,7 +75,7 @@ public class SwipeMenuView extends LinearLayout implements View.OnClickListener
             parent.setGravity(Gravity.CENTER);
             parent.setOrientation(VERTICAL);
             parent.setLayoutParams(params);
-            ViewCompat.setBackground(parent, item.getBackground());
+            ViewCompat.setBackground(parent, SwipeMenuItem.newDrawable(item.getBackground(), getResources()));
             parent.setOnClickListener(this);
             addView(parent);
 
@@ -93,13 +96,31 @@ public class SwipeMenuView extends LinearLayout implements View.OnClickListener
         }
     }
 
+    @Override
     public void bindViewHolder(RecyclerView.ViewHolder adapterVIewHolder) {
         this.mAdapterVIewHolder = adapterVIewHolder;
     }
 
+    @Override
+    public void setSwipeSwitch(SwipeSwitch swipeSwitch) {
+        this.mSwipeSwitch = swipeSwitch;
+        int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            Object tag = getChildAt(i).getTag();
+            if (tag instanceof SwipeMenuBridge) {
+                ((SwipeMenuBridge) tag).setSwipeSwitch(swipeSwitch);
+            }
+        }
+    }
+
+    @Override
+    public int getMenuItemCount() {
+        return getChildCount();
+    }
+
     private ImageView createIcon(SwipeMenuItem item) {
         ImageView imageView = new ImageView(getContext());
-        imageView.setImageDrawable(item.getImage());
+        imageView.setImageDrawable(SwipeMenuItem.newDrawable(item.getImage(), getResources()));
         return imageView;
     }
 
@@ -124,7 +145,7 @@ public class SwipeMenuView extends LinearLayout implements View.OnClickListener
 
     @Override
     public void onClick(View v) {
-        if (mItemClickListener != null && mSwipeSwitch.isMenuOpen()) {
+        if (mItemClickListener != null && mSwipeSwitch != null && mSwipeSwitch.isMenuOpen()) {
             SwipeMenuBridge menuBridge = (SwipeMenuBridge) v.getTag();
             menuBridge.mAdapterPosition = mAdapterVIewHolder.getAdapterPosition();
             mItemClickListener.onItemClick(menuBridge);
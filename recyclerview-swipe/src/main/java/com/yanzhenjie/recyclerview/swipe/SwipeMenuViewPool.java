@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe;
+
+import android.support.v4.util.SparseArrayCompat;
+import android.util.SparseIntArray;
+
+import java.util.ArrayList;
+
+/**
+ * <p>Pool of prebuilt {@link SwipeMenuView} and {@link SwipeMenuDrawView}, keyed by view type and direction.</p>
+ * <p>A recycled ViewHolder keeps its menus, they are returned to the pool when the ViewHolder is discarded by the
+ * {@link android.support.v7.widget.RecyclerView.RecycledViewPool} of {@link SwipeMenuRecyclerView}, and taken back out
+ * when a new ViewHolder of the same view type needs a menu, so the menu items are not rebuilt for every new
+ * ViewHolder.</p>
+ */
+public class SwipeMenuViewPool {
+
+    private static final int DEFAULT_MAX_SIZE = 5;
+
+    private final SparseArrayCompat<ArrayList<SwipeMenuContainer>> mLeftScrap = new SparseArrayCompat<>();
+    private final SparseArrayCompat<ArrayList<SwipeMenuContainer>> mRightScrap = new SparseArrayCompat<>();
+    private final SparseIntArray mMaxSizes = new SparseIntArray();
+
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * Set the maximum number of menus of each direction to hold for the view type.
+     *
+     * @param viewType view type of item.
+     * @param max      maximum number, 0 disables the pool for this view type.
+     */
+    public void setMaxPooledMenus(int viewType, int max) {
+        mMaxSizes.put(viewType, max);
+        trim(getScrap(viewType, SwipeMenuRecyclerView.LEFT_DIRECTION), max);
+        trim(getScrap(viewType, SwipeMenuRecyclerView.RIGHT_DIRECTION), max);
+    }
+
+    /**
+     * Get the maximum number of menus of each direction to hold for the view type.
+     */
+    public int getMaxPooledMenus(int viewType) {
+        return mMaxSizes.get(viewType, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Get the number of menus currently held for the view type and direction.
+     */
+    public int getPooledMenuCount(int viewType, @SwipeMenuRecyclerView.DirectionMode int direction) {
+        return getScrap(viewType, direction).size();
+    }
+
+    /**
+     * The number of times a menu was taken from the pool.
+     */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * The number of times a menu had to be built because the pool was empty.
+     */
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    public void resetCounters() {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    /**
+     * Discard all pooled menus.
+     */
+    public void clear() {
+        mLeftScrap.clear();
+        mRightScrap.clear();
+    }
+
+    SwipeMenuContainer acquire(int viewType, @SwipeMenuRecyclerView.DirectionMode int direction) {
+        ArrayList<SwipeMenuContainer> scrap = getScrap(viewType, direction);
+        int size = scrap.size();
+        if (size > 0) {
+            mHitCount++;
+            return scrap.remove(size - 1);
+        }
+        mMissCount++;
+        return null;
+    }
+
+    boolean release(int viewType, @SwipeMenuRecyclerView.DirectionMode int direction, SwipeMenuContainer menuView) {
+        ArrayList<SwipeMenuContainer> scrap = getScrap(viewType, direction);
+        if (scrap.size() >= getMaxPooledMenus(viewType)) return false;
+        menuView.bindViewHolder(null);
+        menuView.setSwipeSwitch(null);
+        scrap.add(menuView);
+        return true;
+    }
+
+    private ArrayList<SwipeMenuContainer> getScrap(int viewType, int direction) {
+        SparseArrayCompat<ArrayList<SwipeMenuContainer>> scrapArray =
+                direction == SwipeMenuRecyclerView.LEFT_DIRECTION ? mLeftScrap : mRightScrap;
+        ArrayList<SwipeMenuContainer> scrap = scrapArray.get(viewType);
+        if (scrap == null) {
+            scrap = new ArrayList<>(getMaxPooledMenus(viewType));
+            scrapArray.put(viewType, scrap);
+        }
+        return scrap;
+    }
+
+    private static void trim(ArrayList<SwipeMenuContainer> scrap, int max) {
+        while (scrap.size() > max) {
+            scrap.remove(scrap.size() - 1);
+        }
+    }
+}
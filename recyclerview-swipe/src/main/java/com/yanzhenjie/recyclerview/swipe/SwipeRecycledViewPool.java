@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe;
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * <p>{@link RecyclerView.RecycledViewPool} which returns the menu views of a discarded ViewHolder to
+ * {@link SwipeMenuViewPool}.</p>
+ * <p>A recycled ViewHolder keeps its menu views for its next bind, when the pool of its view type is full the holder
+ * is dropped, and its menu views are taken by the next holder of the view type instead.</p>
+ */
+class SwipeRecycledViewPool extends RecyclerView.RecycledViewPool {
+
+    @Override
+    public void putRecycledView(RecyclerView.ViewHolder scrap) {
+        int viewType = scrap.getItemViewType();
+        int count = getRecycledViewCount(viewType);
+        super.putRecycledView(scrap);
+        if (getRecycledViewCount(viewType) == count && scrap.itemView instanceof SwipeMenuLayout) {
+            ((SwipeMenuLayout) scrap.itemView).detachMenus();
+        }
+    }
+}
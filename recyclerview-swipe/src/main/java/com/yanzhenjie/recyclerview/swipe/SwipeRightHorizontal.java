@@ -18,6 +18,8 @@ package com.yanzhenjie.recyclerview.swipe;
 import android.view.View;
 import android.widget.OverScroller;
 
+import com.yanzhenjie.recyclerview.swipe.core.SwipeMath;
+
 
 class SwipeRightHorizontal extends SwipeHorizontal {
 
@@ -27,13 +29,12 @@ class SwipeRightHorizontal extends SwipeHorizontal {
 
     @Override
     public boolean isMenuOpen(int scrollX) {
-        int i = -getMenuView().getWidth() * getDirection();
-        return scrollX >= i && i != 0;
+        return SwipeMath.isMenuOpen(getDirection(), scrollX, getMenuView().getWidth());
     }
 
     @Override
     public boolean isMenuOpenNotEqual(int scrollX) {
-        return scrollX > -getMenuView().getWidth() * getDirection();
+        return SwipeMath.isMenuOpenNotEqual(getDirection(), scrollX, getMenuView().getWidth());
     }
 
     @Override
@@ -48,18 +49,9 @@ class SwipeRightHorizontal extends SwipeHorizontal {
 
     @Override
     public Checker checkXY(int x, int y) {
-        mChecker.x = x;
+        mChecker.x = SwipeMath.clampScrollX(getDirection(), x, getMenuView().getWidth());
         mChecker.y = y;
-        mChecker.shouldResetSwipe = false;
-        if (mChecker.x == 0) {
-            mChecker.shouldResetSwipe = true;
-        }
-        if (mChecker.x < 0) {
-            mChecker.x = 0;
-        }
-        if (mChecker.x > getMenuView().getWidth()) {
-            mChecker.x = getMenuView().getWidth();
-        }
+        mChecker.shouldResetSwipe = x == 0;
         return mChecker;
     }
 
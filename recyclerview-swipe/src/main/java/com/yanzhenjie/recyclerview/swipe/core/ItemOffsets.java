@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe.core;
+
+/**
+ * Offset math of the divider decoration, the divider is split between the two items on each side of it, the items on
+ * the edge of the list get no offset on that edge.
+ */
+public final class ItemOffsets {
+
+    public static final int LEFT = 0;
+    public static final int TOP = 1;
+    public static final int RIGHT = 2;
+    public static final int BOTTOM = 3;
+
+    private ItemOffsets() {
+    }
+
+    /**
+     * Compute the offsets of the item.
+     *
+     * @param out           receives left, top, right and bottom, the length must be at least 4.
+     * @param position      adapter position of the item.
+     * @param columnCount   span count, 1 for a list.
+     * @param childCount    item count of the adapter.
+     * @param dividerWidth  divider width.
+     * @param dividerHeight divider height.
+     */
+    public static void getItemOffsets(int[] out, int position, int columnCount, int childCount,
+                                      int dividerWidth, int dividerHeight) {
+        boolean firstRaw = isFirstRaw(position, columnCount);
+        boolean lastRaw = isLastRaw(position, columnCount, childCount);
+        boolean firstColumn = isFirstColumn(position, columnCount);
+        boolean lastColumn = isLastColumn(position, columnCount);
+
+        int halfWidth = dividerWidth / 2;
+        int halfHeight = dividerHeight / 2;
+        if (columnCount == 1) {
+            if (firstRaw) {
+                set(out, 0, 0, 0, halfHeight);
+            } else if (lastRaw) {
+                set(out, 0, halfHeight, 0, 0);
+            } else {
+                set(out, 0, halfHeight, 0, halfHeight);
+            }
+        } else {
+            int left = firstColumn ? 0 : halfWidth;
+            int top = firstRaw ? 0 : halfHeight;
+            int right = lastColumn ? 0 : halfWidth;
+            int bottom = lastRaw && !firstRaw ? 0 : halfHeight;
+            set(out, left, top, right, bottom);
+        }
+    }
+
+    public static boolean isFirstRaw(int position, int columnCount) {
+        return position < columnCount;
+    }
+
+    public static boolean isLastRaw(int position, int columnCount, int childCount) {
+        if (columnCount == 1)
+            return position + 1 == childCount;
+        else {
+            int lastRawItemCount = childCount % columnCount;
+            int rawCount = (childCount - lastRawItemCount) / columnCount + (lastRawItemCount > 0 ? 1 : 0);
+
+            int rawPositionJudge = (position + 1) % columnCount;
+            if (rawPositionJudge == 0) {
+                int rawPosition = (position + 1) / columnCount;
+                return rawCount == rawPosition;
+            } else {
+                int rawPosition = (position + 1 - rawPositionJudge) / columnCount + 1;
+                return rawCount == rawPosition;
+            }
+        }
+    }
+
+    public static boolean isFirstColumn(int position, int columnCount) {
+        if (columnCount == 1)
+            return true;
+        return position % columnCount == 0;
+    }
+
+    public static boolean isLastColumn(int position, int columnCount) {
+        if (columnCount == 1)
+            return true;
+        return (position + 1) % columnCount == 0;
+    }
+
+    private static void set(int[] out, int left, int top, int right, int bottom) {
+        out[LEFT] = left;
+        out[TOP] = top;
+        out[RIGHT] = right;
+        out[BOTTOM] = bottom;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe.core;
+
+/**
+ * Position mapping of the adapter wrapper, the items are headers, then the items of the wrapped adapter, then footers.
+ */
+public final class ItemPositions {
+
+    private ItemPositions() {
+    }
+
+    public static boolean isHeader(int position, int headerCount) {
+        return position >= 0 && position < headerCount;
+    }
+
+    public static boolean isFooter(int position, int headerCount, int contentCount) {
+        return position >= headerCount + contentCount;
+    }
+
+    public static boolean isContent(int position, int headerCount, int contentCount) {
+        return position >= headerCount && position < headerCount + contentCount;
+    }
+
+    /**
+     * The position in the wrapped adapter.
+     */
+    public static int toContentPosition(int position, int headerCount) {
+        return position - headerCount;
+    }
+
+    /**
+     * The index of the footer.
+     */
+    public static int toFooterIndex(int position, int headerCount, int contentCount) {
+        return position - headerCount - contentCount;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe.core;
+
+/**
+ * Per-frame math of the material progress spinner, free of allocation.
+ */
+public final class ProgressMath {
+
+    private ProgressMath() {
+    }
+
+    /**
+     * Blend two ARGB colors, adapted from ArgbEvaluator without boxing.
+     *
+     * @param fraction 0 gives {@code startColor}, 1 gives {@code endColor}.
+     */
+    public static int evaluateColor(float fraction, int startColor, int endColor) {
+        int startA = (startColor >> 24) & 0xff;
+        int startR = (startColor >> 16) & 0xff;
+        int startG = (startColor >> 8) & 0xff;
+        int startB = startColor & 0xff;
+
+        int endA = (endColor >> 24) & 0xff;
+        int endR = (endColor >> 16) & 0xff;
+        int endG = (endColor >> 8) & 0xff;
+        int endB = endColor & 0xff;
+
+        return ((startA + (int) (fraction * (endA - startA))) << 24)
+                | ((startR + (int) (fraction * (endR - startR))) << 16)
+                | ((startG + (int) (fraction * (endG - startG))) << 8)
+                | (startB + (int) (fraction * (endB - startB)));
+    }
+
+    /**
+     * The smallest arc of the ring, it matches the stroke width. Only changes with the size of the ring, so compute
+     * it once per size.
+     */
+    public static float minProgressArc(float strokeWidth, double centerRadius) {
+        return (float) Math.toRadians(strokeWidth / (2 * Math.PI * centerRadius));
+    }
+
+    /**
+     * Map {@code fraction} from {@code [offset, 1]} to {@code [0, 1]}.
+     */
+    public static float scaleFraction(float fraction, float offset) {
+        return (fraction - offset) / (1.0f - offset);
+    }
+
+    /**
+     * Rotation of the whole spinner in degrees.
+     *
+     * @param fraction      fraction of the current cycle.
+     * @param rotationCount completed cycles, {@code [0, points)}.
+     * @param fullRotation  degrees of the full rotation.
+     * @param points        cycles of the full rotation.
+     */
+    public static float groupRotation(float fraction, float rotationCount, float fullRotation, float points) {
+        return ((fullRotation / points) * fraction) + (fullRotation * (rotationCount / points));
+    }
+}
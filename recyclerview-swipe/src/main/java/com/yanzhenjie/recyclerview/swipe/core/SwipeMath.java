@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 Yan Zhenjie
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.recyclerview.swipe.core;
+
+/**
+ * Scroll math of the swipe menu, the menu on the left is opened with a negative scrollX and the menu on the right
+ * with a positive scrollX.
+ */
+public final class SwipeMath {
+
+    public static final int LEFT_DIRECTION = 1;
+    public static final int RIGHT_DIRECTION = -1;
+
+    private SwipeMath() {
+    }
+
+    /**
+     * Whether the menu is fully open.
+     *
+     * @param direction {@link #LEFT_DIRECTION} or {@link #RIGHT_DIRECTION}.
+     * @param scrollX   scrollX of the swipe layout.
+     * @param menuWidth width of the menu.
+     */
+    public static boolean isMenuOpen(int direction, int scrollX, int menuWidth) {
+        int i = -menuWidth * direction;
+        if (i == 0) return false;
+        return direction == LEFT_DIRECTION ? scrollX <= i : scrollX >= i;
+    }
+
+    /**
+     * Whether the menu is scrolled over its width.
+     */
+    public static boolean isMenuOpenNotEqual(int direction, int scrollX, int menuWidth) {
+        int i = -menuWidth * direction;
+        return direction == LEFT_DIRECTION ? scrollX < i : scrollX > i;
+    }
+
+    /**
+     * Whether the menu is closed.
+     */
+    public static boolean isCompleteClose(int direction, int scrollX, int menuWidth) {
+        return scrollX == 0 && menuWidth * direction != 0;
+    }
+
+    /**
+     * Clamp the scrollX to the range the menu can be scrolled in.
+     */
+    public static int clampScrollX(int direction, int x, int menuWidth) {
+        if (direction == LEFT_DIRECTION) {
+            if (x >= 0) x = 0;
+            if (x <= -menuWidth) x = -menuWidth;
+        } else {
+            if (x < 0) x = 0;
+            if (x > menuWidth) x = menuWidth;
+        }
+        return x;
+    }
+
+    /**
+     * Duration to finish the swipe after the finger is up.
+     *
+     * @param dx          distance between the finger and the scrollX.
+     * @param menuWidth   width of the menu.
+     * @param velocity    velocity of the finger, 0 or less if it is not a fling.
+     * @param maxDuration the maximum duration.
+     */
+    public static int getSwipeDuration(int dx, int menuWidth, int velocity, int maxDuration) {
+        final int halfWidth = menuWidth / 2;
+        final float distanceRatio = Math.min(1f, 1.0f * Math.abs(dx) / menuWidth);
+        final float distance = halfWidth + halfWidth * distanceInfluenceForSnapDuration(distanceRatio);
+        int duration;
+        if (velocity > 0) {
+            duration = 4 * Math.round(1000 * Math.abs(distance / velocity));
+        } else {
+            final float pageDelta = (float) Math.abs(dx) / menuWidth;
+            duration = (int) ((pageDelta + 1) * 100);
+        }
+        return Math.min(duration, maxDuration);
+    }
+
+    public static float distanceInfluenceForSnapDuration(float f) {
+        f -= 0.5f; // center the values about 0.
+        f *= 0.3f * Math.PI / 2.0f;
+        return (float) Math.sin(f);
+    }
+}
@@ -26,6 +26,7 @@ import android.support.v7.widget.StaggeredGridLayoutManager;
 import android.view.View;
 
 import com.yanzhenjie.recyclerview.swipe.SwipeMenuRecyclerView;
+import com.yanzhenjie.recyclerview.swipe.core.ItemOffsets;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +38,7 @@ public class DefaultItemDecoration extends RecyclerView.ItemDecoration {
     private int mDividerWidth;
     private int mDividerHeight;
     private List<Integer> mViewTypeList = new ArrayList<>();
+    private final int[] mOffsets = new int[4];
 
     /**
      * @param color decoration line color.
@@ -73,40 +75,10 @@ public class DefaultItemDecoration extends RecyclerView.ItemDecoration {
         int columnCount = getSpanCount(parent);
         int childCount = parent.getAdapter().getItemCount();
 
-        boolean firstRaw = isFirstRaw(position, columnCount);
-        boolean lastRaw = isLastRaw(position, columnCount, childCount);
-        boolean firstColumn = isFirstColumn(position, columnCount);
-        boolean lastColumn = isLastColumn(position, columnCount);
-
-        if (columnCount == 1) {
-            if (firstRaw) {
-                outRect.set(0, 0, 0, mDividerHeight / 2);
-            } else if (lastRaw) {
-                outRect.set(0, mDividerHeight / 2, 0, 0);
-            } else {
-                outRect.set(0, mDividerHeight / 2, 0, mDividerHeight / 2);
-            }
-        } else {
-            if (firstRaw && firstColumn) { // right, bottom
-                outRect.set(0, 0, mDividerWidth / 2, mDividerHeight / 2);
-            } else if (firstRaw && lastColumn) { // left, right
-                outRect.set(mDividerWidth / 2, 0, 0, mDividerHeight / 2);
-            } else if (firstRaw) { // left, right, bottom
-                outRect.set(mDividerWidth / 2, 0, mDividerWidth / 2, mDividerHeight / 2);
-            } else if (lastRaw && firstColumn) { // top, right
-                outRect.set(0, mDividerHeight / 2, mDividerWidth / 2, 0);
-            } else if (lastRaw && lastColumn) { // left, top
-                outRect.set(mDividerWidth / 2, mDividerHeight / 2, 0, 0);
-            } else if (lastRaw) { // left, top, right
-                outRect.set(mDividerWidth / 2, mDividerHeight / 2, mDividerWidth / 2, 0);
-            } else if (firstColumn) { // top, right, bottom
-                outRect.set(0, mDividerHeight / 2, mDividerWidth / 2, mDividerHeight / 2);
-            } else if (lastColumn) { // left, top, bottom
-                outRect.set(mDividerWidth / 2, mDividerHeight / 2, 0, mDividerHeight / 2);
-            } else { // left, bottom.
-                outRect.set(mDividerWidth / 2, mDividerHeight / 2, mDividerWidth / 2, mDividerHeight / 2);
-            }
-        }
+        int[] offsets = mOffsets;
+        ItemOffsets.getItemOffsets(offsets, position, columnCount, childCount, mDividerWidth, mDividerHeight);
+        outRect.set(offsets[ItemOffsets.LEFT], offsets[ItemOffsets.TOP], offsets[ItemOffsets.RIGHT],
+                offsets[ItemOffsets.BOTTOM]);
     }
 
     private int getSpanCount(RecyclerView parent) {
@@ -119,40 +91,6 @@ public class DefaultItemDecoration extends RecyclerView.ItemDecoration {
         return 1;
     }
 
-    private boolean isFirstRaw(int position, int columnCount) {
-        return position < columnCount;
-    }
-
-    private boolean isLastRaw(int position, int columnCount, int childCount) {
-        if (columnCount == 1)
-            return position + 1 == childCount;
-        else {
-            int lastRawItemCount = childCount % columnCount;
-            int rawCount = (childCount - lastRawItemCount) / columnCount + (lastRawItemCount > 0 ? 1 : 0);
-
-            int rawPositionJudge = (position + 1) % columnCount;
-            if (rawPositionJudge == 0) {
-                int rawPosition = (position + 1) / columnCount;
-                return rawCount == rawPosition;
-            } else {
-                int rawPosition = (position + 1 - rawPositionJudge) / columnCount + 1;
-                return rawCount == rawPosition;
-            }
-        }
-    }
-
-    private boolean isFirstColumn(int position, int columnCount) {
-        if (columnCount == 1)
-            return true;
-        return position % columnCount == 0;
-    }
-
-    private boolean isLastColumn(int position, int columnCount) {
-        if (columnCount == 1)
-            return true;
-        return (position + 1) % columnCount == 0;
-    }
-
     @Override
     public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
         drawHorizontal(c, parent);